@@ -0,0 +1,61 @@
+package bguspl.set;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Builds game environments for the benchmarks: no window, no table delays and no log handlers.
+ */
+public final class BenchEnv {
+
+    private BenchEnv() {
+    }
+
+    /**
+     * @param featureSize  - the number of values per feature.
+     * @param featureCount - the number of features per card.
+     * @param players      - the number of (computer) players.
+     * @return             - a headless environment.
+     */
+    public static Env create(int featureSize, int featureCount, int players) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(players));
+        properties.put("TableDelaySeconds", "0");
+        properties.put("Hints", "False");
+        Logger logger = Logger.getLogger("SetGameBenchmark");
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        return new Env(logger, config, new NoUserInterface(), new UtilImpl(config));
+    }
+
+    /**
+     * A user interface that ignores every call.
+     */
+    public static class NoUserInterface implements UserInterface {
+        @Override
+        public void placeCard(int card, int slot) {}
+        @Override
+        public void removeCard(int slot) {}
+        @Override
+        public void setCountdown(long millies, boolean warn) {}
+        @Override
+        public void setElapsed(long millies) {}
+        @Override
+        public void setScore(int player, int score) {}
+        @Override
+        public void setFreeze(int player, long millies) {}
+        @Override
+        public void placeToken(int player, int slot) {}
+        @Override
+        public void removeTokens() {}
+        @Override
+        public void removeTokens(int slot) {}
+        @Override
+        public void removeToken(int player, int slot) {}
+        @Override
+        public void announceWinner(int[] players) {}
+    }
+}
@@ -0,0 +1,160 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks the set engine (UtilImpl) on several deck configurations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetEngineBenchmark {
+
+    /**
+     * A shuffled deck and random claims on it.
+     */
+    public abstract static class Cards {
+
+        Util util;
+
+        /**
+         * Every card of the deck, shuffled.
+         */
+        List<Integer> fullDeck;
+
+        /**
+         * The first 12 cards of fullDeck (a table).
+         */
+        List<Integer> table;
+
+        /**
+         * Random claims of featureSize cards each, half of them legal sets.
+         */
+        int[][] claims;
+
+        private int next;
+
+        /**
+         * @param deck - the deck configuration, as featureSize x featureCount.
+         */
+        void load(String deck) {
+            String[] dimensions = deck.split("x");
+            Env env = BenchEnv.create(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]), 2);
+            util = env.util;
+
+            fullDeck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+            Collections.shuffle(fullDeck, new Random(42));
+            table = fullDeck.subList(0, Math.min(12, fullDeck.size()));
+
+            Random random = new Random(7);
+            List<int[]> sets = util.streamSets(fullDeck).limit(512).collect(Collectors.toList());
+            claims = new int[1024][];
+            for (int i = 0; i < claims.length; ++i) {
+                if (i % 2 == 0 && !sets.isEmpty()) {
+                    claims[i] = sets.get(random.nextInt(sets.size()));
+                } else {
+                    claims[i] = random.ints(env.config.featureSize, 0, env.config.deckSize).toArray();
+                }
+            }
+        }
+
+        int[] nextClaim() {
+            next = (next + 1) & (claims.length - 1);
+            return claims[next];
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AnyDeck extends Cards {
+
+        /**
+         * The deck configuration, as featureSize x featureCount.
+         */
+        @Param({"3x4", "3x6", "3x7", "4x3", "5x3"})
+        public String deck;
+
+        @Setup
+        public void setUp() {
+            load(deck);
+        }
+    }
+
+    /**
+     * Decks whose sets are made of three cards (featureSize == 3), the only ones testSet(a, b, c) applies to.
+     */
+    @State(Scope.Benchmark)
+    public static class TripleDeck extends Cards {
+
+        @Param({"3x4", "3x6", "3x7"})
+        public String deck;
+
+        @Setup
+        public void setUp() {
+            load(deck);
+        }
+    }
+
+    /**
+     * Decks small enough to enumerate all of their sets.
+     */
+    @State(Scope.Benchmark)
+    public static class SmallDeck extends Cards {
+
+        @Param({"3x4", "3x6", "4x3"})
+        public String deck;
+
+        @Setup
+        public void setUp() {
+            load(deck);
+        }
+    }
+
+    @Benchmark
+    public boolean testSet(AnyDeck cards) {
+        return cards.util.testSet(cards.nextClaim());
+    }
+
+    @Benchmark
+    public boolean testSetTriple(TripleDeck cards) {
+        int[] claim = cards.nextClaim();
+        return cards.util.testSet(claim[0], claim[1], claim[2]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<int[]> findOneSetInDeck(AnyDeck cards) {
+        return cards.util.findSets(cards.fullDeck, 1);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<int[]> findAllSetsOnTable(AnyDeck cards) {
+        return cards.util.findSets(cards.table, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void streamAllSetsInDeck(SmallDeck cards, Blackhole blackhole) {
+        cards.util.streamSets(cards.fullDeck).forEach(blackhole::consume);
+    }
+}
@@ -0,0 +1,99 @@
+package bguspl.set.ex;
+
+import bguspl.set.BenchEnv;
+import bguspl.set.Env;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the dealer's claim settlement (Dealer.set_Checker), for a rejected and for an accepted claim, and for
+ * a batch of claims from every player on the same legal set (the first one wins, the others are stale).
+ * Player 0 has tokens on slots 0, 1 and 2, which hold a legal set. Player 1 has tokens on slots 0, 1 and 3, which do not.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DealerBenchmark {
+
+    private static final int[] LEGAL = {0, 1, 2};
+    private static final int[] ILLEGAL = {0, 1, 3};
+    private static final int PLAYERS = 16;
+
+    private Env env;
+    private Table table;
+    private Dealer dealer;
+    private List<Claim> legal;
+    private List<Claim> illegal;
+    private List<Claim> contended;
+
+    @Setup(Level.Trial)
+    public void setUpEnv() {
+        env = BenchEnv.create(3, 4, PLAYERS);
+    }
+
+    /**
+     * An accepted claim changes the table, so it is rebuilt before every call (setup time is not measured).
+     */
+    @Setup(Level.Invocation)
+    public void setUpTable() {
+        table = new Table(env);
+        Player[] players = new Player[env.config.players];
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; ++i)
+            players[i] = new Player(env, dealer, table, i, false);
+        int[] cards = {0, 1, 2, 4, 5, 9, 13, 18, 27, 40, 54, 80}; // 0, 1, 2 is a set; 0, 1, 4 is not
+        for (int slot = 0; slot < cards.length; ++slot)
+            table.placeCard(cards[slot], slot);
+        for (int slot : LEGAL)
+            table.placeToken(0, slot);
+        for (int slot : ILLEGAL)
+            table.placeToken(1, slot);
+        for (int player = 2; player < PLAYERS; ++player)
+            for (int slot : LEGAL)
+                table.placeToken(player, slot);
+        table.claims.drain(claim -> { }, Integer.MAX_VALUE);
+
+        long now = System.nanoTime();
+        legal = new ArrayList<>(Collections.singletonList(claim(0, LEGAL, new int[]{0, 1, 2}, true, now)));
+        illegal = new ArrayList<>(Collections.singletonList(claim(1, ILLEGAL, new int[]{0, 1, 4}, false, now)));
+        contended = new ArrayList<>();
+        for (int player = PLAYERS - 1; player >= 2; --player)
+            contended.add(claim(player, LEGAL, new int[]{0, 1, 2}, true, now + player));
+    }
+
+    private Claim claim(int player, int[] slots, int[] cards, boolean legal, long nanoTime) {
+        return new Claim(player, slots, cards, table.version(), legal, nanoTime);
+    }
+
+    @Benchmark
+    public void rejectClaim() {
+        dealer.set_Checker(illegal);
+    }
+
+    @Benchmark
+    public void acceptClaim() {
+        dealer.set_Checker(legal);
+    }
+
+    @Benchmark
+    public void settleContendedBatch() {
+        dealer.set_Checker(contended);
+    }
+}
@@ -0,0 +1,90 @@
+package bguspl.set.ex;
+
+import bguspl.set.BenchEnv;
+import bguspl.set.Env;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks placing and removing tokens on a full table while several players do the same.
+ * Each benchmark thread acts as a different player, pressing slots in its own order.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    static final int PLAYERS = 64;
+
+    @State(Scope.Benchmark)
+    public static class Game {
+
+        Table table;
+
+        final AtomicInteger nextPlayer = new AtomicInteger();
+
+        @Setup
+        public void setUp() {
+            Env env = BenchEnv.create(3, 4, PLAYERS);
+            table = new Table(env);
+            for (int slot = 0; slot < env.config.tableSize; ++slot)
+                table.placeCard(slot, slot);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Player {
+
+        int id;
+        int slot;
+        int tableSize;
+
+        @Setup
+        public void setUp(Game game) {
+            id = game.nextPlayer.getAndIncrement() % PLAYERS;
+            slot = id;
+            tableSize = game.table.countCards();
+        }
+    }
+
+    /**
+     * Presses the same slot twice (placing a token and removing it again), the way a player thread does.
+     */
+    private static void toggle(Game game, Player player) {
+        player.slot = (player.slot + 1) % player.tableSize;
+        game.table.toggleToken(player.id, player.slot);
+        game.table.toggleToken(player.id, player.slot);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void tokens2Players(Game game, Player player) {
+        toggle(game, player);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void tokens8Players(Game game, Player player) {
+        toggle(game, player);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void tokens64Players(Game game, Player player) {
+        toggle(game, player);
+    }
+}
@@ -0,0 +1,115 @@
+package bguspl.set.ex;
+
+import bguspl.set.BenchEnv;
+import bguspl.set.Env;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks 64 players reading the cards on the table while the dealer keeps replacing cards, comparing
+ * optimistic snapshots with locking every slot.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableSnapshotBenchmark {
+
+    static final int PLAYERS = 64;
+
+    @State(Scope.Group)
+    public static class Game {
+
+        Table table;
+        int tableSize;
+        int deckSize;
+        int nextCard;
+        int nextSlot;
+
+        @Setup
+        public void setUp() {
+            Env env = BenchEnv.create(3, 4, PLAYERS);
+            table = new Table(env);
+            tableSize = env.config.tableSize;
+            deckSize = env.config.deckSize;
+            for (int slot = 0; slot < tableSize; ++slot)
+                table.placeCard(slot, slot);
+            nextCard = tableSize;
+        }
+
+        /**
+         * Replaces the card in the next slot with the next card off the table, the way the dealer does.
+         */
+        void replaceCard() {
+            int[] slot = {nextSlot};
+            table.lockSlots(slot);
+            try {
+                table.removeCard(nextSlot);
+                table.placeCard(nextCard, nextSlot);
+            } finally {
+                table.unlockSlots(slot);
+            }
+            nextSlot = (nextSlot + 1) % tableSize;
+            nextCard = nextCard + 1 == deckSize ? tableSize : nextCard + 1;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+
+        int[] cards;
+
+        @Setup
+        public void setUp(Game game) {
+            cards = new int[game.tableSize];
+        }
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(PLAYERS)
+    public long snapshotReader(Game game, Reader reader) {
+        return game.table.snapshot(reader.cards);
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(1)
+    public void snapshotDealer(Game game) {
+        game.replaceCard();
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(PLAYERS)
+    public int lockedReader(Game game, Reader reader) {
+        game.table.lockAll();
+        try {
+            for (int slot = 0; slot < game.tableSize; ++slot)
+                reader.cards[slot] = game.table.cardAt(slot);
+            return reader.cards[0];
+        } finally {
+            game.table.unlockAll();
+        }
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(1)
+    public void lockedDealer(Game game) {
+        game.replaceCard();
+    }
+}
@@ -7,6 +7,7 @@ import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Properties;
+import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,6 +31,16 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * Whether to search for sets on the common fork-join pool (for large decks)
+     */
+    public final boolean parallelFindSets;
+
+    /**
+     * The seed of the dealer's and the computer players' random number generators (random if not configured)
+     */
+    public final long seed;
+
     /**
      * The number of human players in the game.
      */
@@ -45,11 +56,38 @@ public class Config {
      */
     public final int players;
 
+    /**
+     * How computer players play: "Random" (random key presses), "Solver" (claims a legal set after its reaction time)
+     * or "HumanLike" (like Solver, with a skewed reaction time and occasional mistakes)
+     */
+    public final String computerStrategy;
+
+    /**
+     * The typical number of milliseconds a Solver/HumanLike computer player takes to react to the table
+     */
+    public final long computerReactionMillis;
+
+    /**
+     * The spread (standard deviation) of the computer players' reaction time, in milliseconds
+     */
+    public final long computerReactionJitterMillis;
+
+    /**
+     * Whether to run the player and computer player threads as virtual threads (when the JVM supports them)
+     */
+    public final boolean virtualThreads;
+
     /**
      * Whether to print out hints to the console or not
      */
     public final boolean hints;
 
+    /**
+     * How the dealer draws cards from the deck: "Random", or "GuaranteeSet" to make sure the table has a set
+     * whenever the deck allows it
+     */
+    public final String dealStrategy;
+
     /**
      * The number of milliseconds until the dealer reshuffles the deck (0 show timer since last action, -1 show nothing)
      */
@@ -60,6 +98,16 @@ public class Config {
      */
     public final long turnTimeoutWarningMillis;
 
+    /**
+     * The number of milliseconds between updates of the turn countdown display
+     */
+    public final long displayTickMillis;
+
+    /**
+     * The number of milliseconds between updates of the turn countdown display while the warning is displayed
+     */
+    public final long warningDisplayTickMillis;
+
     /**
      * The number of milliseconds a player gets frozen for when he scores a point
      */
@@ -71,7 +119,8 @@ public class Config {
     public final long pointFreezeMillis;
 
     /**
-     * The number of milliseconds to delay before removing/placing a card on the table
+     * The number of milliseconds the user interface waits before showing a card being removed/placed on the table
+     * (the table itself changes instantly)
      */
     public final long tableDelayMillis;
 
@@ -144,7 +193,7 @@ public class Config {
      * @param filename - the name of the configuration file.
      * @return - a properties object with the configuration file contents.
      */
-    private static Properties loadProperties(String filename, Logger logger) {
+    static Properties loadProperties(String filename, Logger logger) {
 
         Properties properties = new Properties();
 
@@ -173,15 +222,25 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        parallelFindSets = Boolean.parseBoolean(properties.getProperty("ParallelFindSets", "False"));
+        String seedProperty = properties.getProperty("Seed", "").trim();
+        seed = seedProperty.isEmpty() ? new Random().nextLong() : Long.parseLong(seedProperty);
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
         computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
         players = humanPlayers + computerPlayers;
+        computerStrategy = properties.getProperty("ComputerStrategy", "Random").trim();
+        computerReactionMillis = (long) (Double.parseDouble(properties.getProperty("ComputerReactionSeconds", "1")) * 1000.0);
+        computerReactionJitterMillis = (long) (Double.parseDouble(properties.getProperty("ComputerReactionJitterSeconds", "0.3")) * 1000.0);
+        virtualThreads = Boolean.parseBoolean(properties.getProperty("VirtualThreads", "False"));
 
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
+        dealStrategy = properties.getProperty("DealStrategy", "Random").trim();
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
+        displayTickMillis = Math.max(1, (long) (Double.parseDouble(properties.getProperty("DisplayTickSeconds", "1")) * 1000.0));
+        warningDisplayTickMillis = Math.max(1, (long) (Double.parseDouble(properties.getProperty("WarningDisplayTickSeconds", "0.01")) * 1000.0));
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
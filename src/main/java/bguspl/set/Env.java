@@ -1,5 +1,6 @@
 package bguspl.set;
 
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.logging.Logger;
 
 public class Env {
@@ -8,11 +9,29 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final GameThreadFactory threads;
+
+    /**
+     * The executor the computer players take their steps on, or null if they run on threads of their own.
+     */
+    public final ScheduledExecutorService steps;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, new GameThreadFactory(logger, config.virtualThreads), null);
+    }
+
+    /**
+     * @param threads - the thread factory, shared by all the games of a GameHost.
+     * @param steps   - the executor the computer players take their steps on, shared by all the games of a GameHost
+     *                  (null to run them on threads of their own).
+     */
+    public Env(Logger logger, Config config, UserInterface ui, Util util, GameThreadFactory threads,
+               ScheduledExecutorService steps) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.threads = threads;
+        this.steps = steps;
     }
 }
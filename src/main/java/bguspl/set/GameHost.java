@@ -0,0 +1,239 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hosts many independent games in one JVM, without any window. The dealers of all the games run on a shared pool of
+ * a bounded number of threads: at most that many games are played at once and the rest wait for a free dealer.
+ *
+ * The players of all the games are computer players, which hold no thread of their own: they take their steps
+ * (look at the table, then press keys once they reacted) as short tasks on a second shared pool, of one thread per
+ * core, and are scheduled while they react or are frozen instead of sleeping. So the games played at once take
+ * a dealer thread each and the cores' threads between them, whatever the number of players, on any Java version.
+ *
+ * Every game has its own Env, Table, Dealer, players and user interface, so the games share no mutable state. Only
+ * the immutable card tables (Util), the logger and the pools are shared, which keeps a game's footprint down to its
+ * table, deck and players.
+ *
+ * Usage: GameHost [games] [games at once] [configuration file], with the configuration file read as by the Simulator.
+ */
+public class GameHost implements AutoCloseable {
+
+    private final Logger logger;
+
+    /**
+     * The settings of the games (each game gets its own seed).
+     */
+    private final Properties properties;
+
+    /**
+     * The seed of the first game, or null if the games are not seeded.
+     */
+    private final Long seed;
+
+    /**
+     * The card tables, shared by all the games.
+     */
+    private final Util util;
+
+    /**
+     * The factory of the players' threads, shared by all the games (only used by human players, if any).
+     */
+    private final GameThreadFactory threads;
+
+    /**
+     * The pool the computer players take their steps on.
+     */
+    private final ScheduledExecutorService computerPlayers;
+
+    /**
+     * The pool the dealers run on.
+     */
+    private final ExecutorService dealers;
+
+    /**
+     * The dealers of the games being played. Guarded by itself, together with closed.
+     */
+    private final Set<Dealer> playing = new HashSet<>();
+
+    /**
+     * True iff the host was closed and starts no more games. Guarded by playing.
+     */
+    private boolean closed;
+
+    /**
+     * The most games played at once so far. Guarded by playing.
+     */
+    private int peakPlaying;
+
+    /**
+     * The total time the games were played for, in nanoseconds.
+     */
+    private final AtomicLong playingNanos = new AtomicLong();
+
+    /**
+     * The number of games submitted so far.
+     */
+    private final AtomicInteger submitted = new AtomicInteger();
+
+    /**
+     * @param logger     - the logger shared by all the games.
+     * @param properties - the settings of the games.
+     * @param maxPlaying - the maximal number of games played at once.
+     */
+    public GameHost(Logger logger, Properties properties, int maxPlaying) {
+        this.logger = logger;
+        this.properties = properties;
+        String seed = properties.getProperty("Seed", "").trim();
+        this.seed = seed.isEmpty() ? null : Long.parseLong(seed);
+        Config config = new Config(logger, properties);
+        util = new UtilImpl(config);
+        threads = new GameThreadFactory(logger, config.virtualThreads);
+        AtomicInteger dealerCount = new AtomicInteger();
+        dealers = Executors.newFixedThreadPool(maxPlaying,
+                runnable -> new Thread(runnable, "dealer-" + dealerCount.getAndIncrement()));
+        AtomicInteger computerCount = new AtomicInteger();
+        computerPlayers = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(),
+                runnable -> new Thread(runnable, "computers-" + computerCount.getAndIncrement()));
+    }
+
+    /**
+     * Adds a game, to be played as soon as a dealer thread is free.
+     *
+     * @return - the game's user interface, available once the game ends.
+     */
+    public Future<RecordingUserInterface> submit() {
+        int game = submitted.getAndIncrement();
+        return dealers.submit(() -> play(game));
+    }
+
+    private RecordingUserInterface play(int game) {
+        Config config;
+        synchronized (properties) {
+            // each game gets its own seed, so that a seeded host replays the same series of games
+            if (seed != null)
+                properties.setProperty("Seed", Long.toString(seed + game));
+            config = new Config(logger, properties);
+        }
+        RecordingUserInterface ui = new RecordingUserInterface();
+        Env env = new Env(logger, config, ui, util, threads, computerPlayers);
+        Player[] players = new Player[config.players];
+        Table table = new Table(env);
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        synchronized (playing) {
+            if (closed) return ui;
+            playing.add(dealer);
+            peakPlaying = Math.max(peakPlaying, playing.size());
+        }
+        long start = System.nanoTime();
+        try {
+            dealer.run();
+        } finally {
+            playingNanos.addAndGet(System.nanoTime() - start);
+            synchronized (playing) {
+                playing.remove(dealer);
+            }
+        }
+        return ui;
+    }
+
+    /**
+     * @return - the most games played at once so far.
+     */
+    public int peakPlaying() {
+        synchronized (playing) {
+            return peakPlaying;
+        }
+    }
+
+    /**
+     * @return - the total time the games were played for, in nanoseconds (divided by the time passed, the average
+     *           number of games played at once).
+     */
+    public long playingNanos() {
+        return playingNanos.get();
+    }
+
+    /**
+     * Ends the games being played, drops the games still waiting and waits for the dealer threads to finish (each of
+     * them waits for the last steps of its players first).
+     */
+    @Override
+    public void close() {
+        synchronized (playing) {
+            closed = true;
+            for (Dealer dealer : playing)
+                dealer.terminate();
+        }
+        dealers.shutdownNow();
+        try {
+            if (!dealers.awaitTermination(10, TimeUnit.SECONDS))
+                logger.log(Level.WARNING, "some games did not end in time.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        computerPlayers.shutdownNow();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int maxPlaying = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        String configFilename = args.length > 2 ? args[2] : "config.properties";
+
+        Logger logger = Logger.getLogger("host");
+        logger.setUseParentHandlers(false);
+        Properties properties = Simulator.loadProperties(configFilename, logger);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        long sets = 0, playingNanos;
+        int failed = 0, peakPlaying;
+        try (GameHost host = new GameHost(logger, properties, maxPlaying)) {
+            List<Future<RecordingUserInterface>> results = new ArrayList<>(games);
+            for (int game = 0; game < games; ++game)
+                results.add(host.submit());
+            for (Future<RecordingUserInterface> result : results) {
+                try {
+                    sets += result.get().scores();
+                } catch (ExecutionException e) {
+                    ++failed;
+                    logger.log(Level.SEVERE, "a game failed.", e.getCause());
+                }
+            }
+            playingNanos = host.playingNanos();
+            peakPlaying = host.peakPlaying();
+        }
+        long nanos = System.nanoTime() - start;
+        double seconds = nanos / 1e9;
+        int peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+
+        System.out.printf("%d games (%d failed), up to %d at once, %d cores, %.2f s%n",
+                games, failed, maxPlaying, cores, seconds);
+        System.out.printf("%.2f games/s, %.1f sets/s%n", games / seconds, sets / seconds);
+        System.out.printf("%.1f tables per core on average (peak %.1f), peak of %d platform threads (%.1f per core)%n",
+                (double) playingNanos / nanos / cores, (double) peakPlaying / cores, peakThreads,
+                (double) peakThreads / cores);
+    }
+}
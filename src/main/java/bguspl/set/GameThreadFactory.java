@@ -0,0 +1,82 @@
+package bguspl.set;
+
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates the threads of the players and of the computer players: virtual threads when they are asked for and the
+ * JVM supports them (Java 21 and on), platform threads otherwise.
+ *
+ * The players block on java.util.concurrent locks and queues and on sleep, which release the carrier thread of a
+ * virtual player. The only monitors they enter are the logger's: its handlers publish a record while holding their
+ * monitor (a FileHandler writes it to the log file meanwhile), which pins the carrier until the record is written.
+ * The players only log when their threads start and end and when a claim is dropped, and never while holding a
+ * slot lock, so that another player waiting for the slot is never stuck behind the log file.
+ */
+public class GameThreadFactory {
+
+    /**
+     * Thread.Builder.name(String) of a virtual thread builder, null when platform threads are used.
+     */
+    private final Method name;
+
+    /**
+     * Thread.Builder.unstarted(Runnable) of a virtual thread builder, null when platform threads are used.
+     */
+    private final Method unstarted;
+
+    /**
+     * Thread.ofVirtual(), null when platform threads are used.
+     */
+    private final Method ofVirtual;
+
+    /**
+     * @param logger  - the logger to report a fallback to platform threads on.
+     * @param virtual - true iff virtual threads are asked for.
+     */
+    public GameThreadFactory(Logger logger, boolean virtual) {
+        Method name = null, unstarted = null, ofVirtual = null;
+        if (virtual) {
+            try {
+                // looked up reflectively so that the game still compiles and runs on JVMs without virtual threads
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                name = builderClass.getMethod("name", String.class);
+                unstarted = builderClass.getMethod("unstarted", Runnable.class);
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                ofVirtual.invoke(null);
+            } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+                logger.log(Level.WARNING, "virtual threads are not supported by this JVM, using platform threads.");
+                name = unstarted = ofVirtual = null;
+            }
+        }
+        this.name = name;
+        this.unstarted = unstarted;
+        this.ofVirtual = ofVirtual;
+    }
+
+    /**
+     * @return - true iff the threads created are virtual.
+     */
+    public boolean isVirtual() {
+        return ofVirtual != null;
+    }
+
+    /**
+     * Creates a thread (not started yet).
+     *
+     * @param task - the task the thread runs.
+     * @param name - the name of the thread.
+     * @return     - the new thread.
+     */
+    public Thread newThread(Runnable task, String name) {
+        if (ofVirtual == null) return new Thread(task, name);
+        try {
+            // a builder is not thread safe, so every thread gets its own
+            Object builder = this.name.invoke(ofVirtual.invoke(null), name);
+            return (Thread) unstarted.invoke(builder, task);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("could not create a virtual thread", e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package bguspl.set;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A user interface that shows nothing and only counts what it was asked to show, so that games can run without
+ * Swing (e.g. in the Simulator). Thread safe.
+ */
+public class RecordingUserInterface implements UserInterface {
+
+    private final AtomicLong cardsPlaced = new AtomicLong();
+    private final AtomicLong cardsRemoved = new AtomicLong();
+    private final AtomicLong tokensPlaced = new AtomicLong();
+    private final AtomicLong scores = new AtomicLong();
+    private final AtomicLong freezes = new AtomicLong();
+
+    /**
+     * The freeze time last shown for each player, so that a freeze is counted once, not on every countdown update.
+     */
+    private final Map<Integer, Long> freezeShown = new ConcurrentHashMap<>();
+
+    private final AtomicReference<int[]> winners = new AtomicReference<>();
+
+    @Override
+    public void placeCard(int card, int slot) {
+        cardsPlaced.incrementAndGet();
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        cardsRemoved.incrementAndGet();
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        scores.incrementAndGet();
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        Long shown = freezeShown.put(player, millies);
+        if (millies > (shown == null ? 0 : shown)) freezes.incrementAndGet();
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        tokensPlaced.incrementAndGet();
+    }
+
+    @Override
+    public void removeTokens() {
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        winners.set(players.clone());
+    }
+
+    /**
+     * @return - the number of cards placed on the table.
+     */
+    public long cardsPlaced() {
+        return cardsPlaced.get();
+    }
+
+    /**
+     * @return - the number of cards removed from the table.
+     */
+    public long cardsRemoved() {
+        return cardsRemoved.get();
+    }
+
+    /**
+     * @return - the number of tokens placed on the table.
+     */
+    public long tokensPlaced() {
+        return tokensPlaced.get();
+    }
+
+    /**
+     * @return - the number of score updates (i.e. the number of points awarded).
+     */
+    public long scores() {
+        return scores.get();
+    }
+
+    /**
+     * @return - the number of freezes started (point and penalty freezes), each counted when it is first shown.
+     */
+    public long freezes() {
+        return freezes.get();
+    }
+
+    /**
+     * @return - the winners announced, or null if the game did not end yet.
+     */
+    public int[] winners() {
+        int[] players = winners.get();
+        return players == null ? null : players.clone();
+    }
+}
@@ -0,0 +1,157 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Plays complete games back to back without any window, as fast as the computer players go, and reports the
+ * throughput and the verdict latency (the time from a claim to the dealer's verdict on it).
+ *
+ * Usage: Simulator [games] [configuration file]. The configuration file is read like the game's, then every player
+ * is made a computer player and the table delay is set to 0. The computer players are solvers reacting at once and
+ * nobody is frozen, whatever the file says; any of these settings can be changed with a system property of the
+ * same name (e.g. -DComputerStrategy=HumanLike -DComputerReactionSeconds=1).
+ */
+public class Simulator {
+
+    /**
+     * The settings a simulation uses instead of the configuration file's, unless given as system properties.
+     */
+    private static final String[][] DEFAULTS = {
+            {"ComputerStrategy", "Solver"},
+            {"ComputerReactionSeconds", "0"},
+            {"ComputerReactionJitterSeconds", "0"},
+            {"PointFreezeSeconds", "0"},
+            {"PenaltyFreezeSeconds", "0"},
+            {"DealStrategy", "GuaranteeSet"},
+            {"TurnTimeoutSeconds", "1"},
+            {"Hints", "False"},
+    };
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        String configFilename = args.length > 1 ? args[1] : "config.properties";
+
+        Logger logger = Logger.getLogger("simulator");
+        logger.setUseParentHandlers(false);
+        Properties properties = loadProperties(configFilename, logger);
+        int players = Integer.parseInt(properties.getProperty("ComputerPlayers"));
+        String seed = properties.getProperty("Seed", "").trim();
+
+        Latencies latencies = new Latencies();
+        long sets = 0, cardsPlaced = 0, cardsRemoved = 0, tokensPlaced = 0, freezes = 0;
+        int ties = 0, unfinished = 0;
+        long start = System.nanoTime();
+        for (int game = 0; game < games; ++game) {
+            // each game gets its own seed, so that a configured seed replays the same series of games
+            if (!seed.isEmpty())
+                properties.setProperty("Seed", Long.toString(Long.parseLong(seed) + game));
+            RecordingUserInterface ui = play(new Config(logger, properties), logger, latencies);
+            sets += ui.scores();
+            cardsPlaced += ui.cardsPlaced();
+            cardsRemoved += ui.cardsRemoved();
+            tokensPlaced += ui.tokensPlaced();
+            freezes += ui.freezes();
+            int[] winners = ui.winners();
+            if (winners == null) ++unfinished;
+            else if (winners.length > 1) ++ties;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games, %d players, %.2f s (%d tied, %d unfinished)%n",
+                games, players, seconds, ties, unfinished);
+        System.out.printf("%.2f games/s, %.1f sets/s%n", games / seconds, sets / seconds);
+        System.out.printf("per game: %.1f cards placed, %.1f cards removed, %.1f tokens placed, %.1f freezes%n",
+                (double) cardsPlaced / games, (double) cardsRemoved / games, (double) tokensPlaced / games,
+                (double) freezes / games);
+        System.out.printf("verdict latency over %d claims: p50 %s, p90 %s, p99 %s, max %s%n", latencies.count(),
+                latencies.format(0.50), latencies.format(0.90), latencies.format(0.99), latencies.format(1.0));
+    }
+
+    /**
+     * Reads a configuration file for games without a window: every player is made a computer player, the table delay
+     * is set to 0 and the simulation settings replace the file's (unless given as system properties).
+     *
+     * @param configFilename - the configuration file.
+     * @param logger         - the logger to report problems reading the file on.
+     * @return               - the settings of the games.
+     */
+    static Properties loadProperties(String configFilename, Logger logger) {
+        Properties properties = Config.loadProperties(configFilename, logger);
+        for (String[] setting : DEFAULTS)
+            properties.setProperty(setting[0], System.getProperty(setting[0], setting[1]));
+        int players = Integer.parseInt(properties.getProperty("HumanPlayers", "2"))
+                + Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", Integer.toString(players));
+        properties.setProperty("TableDelaySeconds", "0");
+        return properties;
+    }
+
+    /**
+     * Plays a single game to its end.
+     *
+     * @return - the user interface of the game, holding what it was asked to show.
+     */
+    private static RecordingUserInterface play(Config config, Logger logger, Latencies latencies) {
+        RecordingUserInterface ui = new RecordingUserInterface();
+        Env env = new Env(logger, config, ui, new UtilImpl(config));
+        Player[] players = new Player[config.players];
+        Table table = new Table(env);
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+        dealer.setVerdictListener(latencies::add);
+
+        Thread dealerThread = new Thread(dealer, "dealer");
+        dealerThread.start();
+        try {
+            dealerThread.join();
+        } catch (InterruptedException e) {
+            dealer.terminate();
+            Thread.currentThread().interrupt();
+            logger.log(Level.WARNING, "simulation interrupted.");
+        }
+        return ui;
+    }
+
+    /**
+     * The verdict latencies measured, in nanoseconds (only added to by one dealer thread at a time).
+     */
+    private static class Latencies {
+
+        private long[] nanos = new long[1024];
+        private int count;
+        private boolean sorted;
+
+        synchronized void add(long latency) {
+            if (count == nanos.length)
+                nanos = Arrays.copyOf(nanos, 2 * count);
+            nanos[count++] = latency;
+            sorted = false;
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        /**
+         * @return - the latency at the given quantile, in milliseconds.
+         */
+        synchronized String format(double quantile) {
+            if (count == 0) return "-";
+            if (!sorted) {
+                Arrays.sort(nanos, 0, count);
+                sorted = true;
+            }
+            int index = (int) Math.min(count - 1, Math.ceil(quantile * count) - 1);
+            return String.format("%.3f ms", nanos[Math.max(0, index)] / 1e6);
+        }
+    }
+}
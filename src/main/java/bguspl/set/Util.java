@@ -1,6 +1,7 @@
 package bguspl.set;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -28,6 +29,23 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Checks if three cards form a legal set, without allocating (same as testSet(new int[]{a, b, c})).
+     * @param a - the first card id.
+     * @param b - the second card id.
+     * @param c - the third card id.
+     * @return  - true iff the three cards form a legal set.
+     */
+    boolean testSet(int a, int b, int c);
+
+    /**
+     * Finds the only card that forms a legal set together with the two given cards.
+     * @param a - the first card id.
+     * @param b - the second card id.
+     * @return  - the card id completing the set, or -1 if sets are not made of three cards (featureSize != 3).
+     */
+    int completeSet(int a, int b);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      * @param deck  - a collection of cards (may not include null objects).
@@ -35,4 +53,12 @@ public interface Util {
      * @return      - a list of up to count integer arrays, each one contains the card ids of a legal set.
      */
     List<int[]> findSets(List<Integer> deck, int count);
+
+    /**
+     * Lazily enumerates the sets in the given collection of cards (each one found only when the stream pulls it).
+     * The stream may be limited to stop early, or made parallel.
+     * @param deck - a collection of cards (may not include null objects).
+     * @return     - a stream of integer arrays, each one contains the card ids of a legal set.
+     */
+    Stream<int[]> streamSets(List<Integer> deck);
 }
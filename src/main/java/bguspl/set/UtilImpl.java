@@ -1,26 +1,98 @@
 package bguspl.set;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The implementation of the UserInterface interface.
  */
 public class UtilImpl implements Util {
 
+    /**
+     * The minimal number of cards for which findSets runs in parallel (when enabled by the configuration).
+     */
+    private static final int PARALLEL_THRESHOLD = 128;
+
+    /**
+     * The number of first card indices below which a parallel findSets task is not split any further.
+     */
+    private static final int SPLIT_THRESHOLD = 16;
+
     private final Config config;
 
+    /**
+     * The features of every card, packed one row of config.featureCount values per card
+     * (i.e. feature i of card c is at c * featureCount + i).
+     */
+    private final byte[] features;
+
+    /**
+     * The features of every card as a single one-hot row: feature i with value v sets bit i * featureSize + v.
+     * Null when the row does not fit in a long (featureCount * featureSize > 64).
+     */
+    private final long[] oneHot;
+
+    /**
+     * The bits of a single feature in a oneHot row.
+     */
+    private final long featureMask;
+
+    /**
+     * The weight of each feature in a card id (i.e. featureSize ^ (featureCount - 1 - i)).
+     */
+    private final int[] weights;
+
+    /**
+     * For every pair of feature values (x, y), the value z such that x, y, z are all the same or all different
+     * (indexed by x * featureSize + y). Only used when sets are made of three cards (i.e. featureSize == 3).
+     */
+    private final int[] completeFeature;
+
     public UtilImpl(Config config) {
         this.config = config;
+
+        int size = config.featureSize;
+        completeFeature = new int[size * size];
+        for (int x = 0; x < size; ++x)
+            for (int y = 0; y < size; ++y)
+                completeFeature[x * size + y] = x == y ? x : 3 - x - y;
+
+        weights = new int[config.featureCount];
+        for (int i = config.featureCount - 1, weight = 1; i >= 0; --i, weight *= size)
+            weights[i] = weight;
+
+        features = new byte[config.deckSize * config.featureCount];
+        for (int card = 0; card < config.deckSize; ++card)
+            for (int i = 0; i < config.featureCount; ++i)
+                features[card * config.featureCount + i] = (byte) (card / weights[i] % size);
+
+        featureMask = size == 64 ? -1L : (1L << size) - 1;
+        if (config.featureCount * size <= Long.SIZE) {
+            oneHot = new long[config.deckSize];
+            for (int card = 0; card < config.deckSize; ++card)
+                for (int i = 0; i < config.featureCount; ++i)
+                    oneHot[card] |= 1L << (i * size + features[card * config.featureCount + i]);
+        } else
+            oneHot = null;
     }
 
     private void cardToFeatures(int card, int[] features) {
-        for (int i = config.featureCount - 1; i >= 0; --i) {
-            features[i] = card % config.featureSize;
-            card /= config.featureSize;
-        }
+        for (int i = 0; i < config.featureCount; ++i)
+            features[i] = this.features[card * config.featureCount + i];
     }
 
     @Override
@@ -39,53 +111,264 @@ public class UtilImpl implements Util {
 
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
-        for (int i = 0; i < config.featureCount; ++i) {
-            boolean sameSame = true, butDifferent = true;
+        if (oneHot != null) {
+            long occupied = 0;
+            for (int card : cards)
+                occupied |= oneHot[card];
+            return testOccupancy(occupied, cards.length);
+        }
 
-            // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
-                    sameSame = false;
-                    break;
-                }
+        for (int i = 0; i < config.featureCount; ++i) {
+            int occupied = 0;
+            for (int card : cards)
+                occupied |= 1 << features[card * config.featureCount + i];
+            int values = Integer.bitCount(occupied);
+            if ((values == 1) == (values == cards.length)) return false;
+        }
+        return true;
+    }
 
-            // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
-                        butDifferent = false;
-                        break;
-                    }
+    @Override
+    public boolean testSet(int a, int b, int c) {
+        if (oneHot != null) return testOccupancy(oneHot[a] | oneHot[b] | oneHot[c], 3);
 
+        int rowA = a * config.featureCount, rowB = b * config.featureCount, rowC = c * config.featureCount;
+        for (int i = 0; i < config.featureCount; ++i) {
+            byte x = features[rowA + i], y = features[rowB + i], z = features[rowC + i];
+            boolean sameSame = x == y && y == z;
+            boolean butDifferent = x != y && y != z && x != z;
             if (sameSame == butDifferent) return false;
         }
         return true;
     }
 
+    /**
+     * Checks the union of the one-hot rows of some cards: every feature must be either sameSame (a single value
+     * occupied) or butDifferent (as many values occupied as there are cards), but not both.
+     *
+     * @param occupied - the bitwise or of the cards' oneHot rows.
+     * @param cards    - the number of cards.
+     * @return         - true iff the cards form a legal set.
+     */
+    private boolean testOccupancy(long occupied, int cards) {
+        for (int i = 0; i < config.featureCount; ++i, occupied >>>= config.featureSize) {
+            int values = Long.bitCount(occupied & featureMask);
+            if ((values == 1) == (values == cards)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int completeSet(int a, int b) {
+        if (config.featureSize != 3) return -1;
+        int third = 0, rowA = a * config.featureCount, rowB = b * config.featureCount;
+        for (int i = 0; i < config.featureCount; ++i)
+            third += completeFeature[features[rowA + i] * config.featureSize + features[rowB + i]] * weights[i];
+        return third;
+    }
+
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
-        LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
-        int r = config.featureSize;
-        int[] combination = new int[r];
-
-        for (int i = 0; i < r; ++i)
-            combination[i] = i;
-
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        if (config.parallelFindSets && cards.length >= PARALLEL_THRESHOLD)
+            return findSetsInParallel(cards, count);
+        return StreamSupport.stream(new SetSpliterator(cards, 0, cards.length), false)
+                .limit(count)
+                .collect(Collectors.toCollection(LinkedList::new));
+    }
+
+    @Override
+    public Stream<int[]> streamSets(List<Integer> deck) {
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        return StreamSupport.stream(new SetSpliterator(cards, 0, cards.length), false);
+    }
+
+    /**
+     * Finds up to count sets on the common fork-join pool, splitting the search on the index of the first card.
+     * Once count sets were found every worker stops at its next step.
+     */
+    private List<int[]> findSetsInParallel(int[] cards, int count) {
+        Queue<int[]> sets = new ConcurrentLinkedQueue<>();
+        AtomicInteger found = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean(false);
+        Consumer<int[]> sink = set -> {
+            int index = found.incrementAndGet();
+            if (index <= count) sets.add(set);
+            if (index >= count) done.set(true);
+        };
+        ForkJoinPool.commonPool().invoke(new FindSetsTask(cards, 0, cards.length, sink, done));
+        return new LinkedList<>(sets);
+    }
+
+    /**
+     * Advances a combination of indices in [0, n) to the next one in lexicographic order, keeping its first index.
+     *
+     * @return - false iff there is no such combination left.
+     */
+    private static boolean nextCombination(int[] combination, int n) {
+        int r = combination.length;
+        int t = r - 1;
+        while (t != 0 && combination[t] == n - r + t) --t;
+        if (t == 0) return false;
+        combination[t]++;
+        for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+        return true;
+    }
+
+    /**
+     * A lazy enumeration of the sets whose first card index (in cards) is in [first, end). Every set is sorted.
+     * When featureSize == 3 it visits only pairs and looks up the card completing each one, so each set
+     * {x < y < z} is reported exactly once, from the pair (x, y). Otherwise it enumerates the combinations.
+     * Splitting hands the upper half of the remaining first indices to a new spliterator.
+     */
+    private class SetSpliterator implements Spliterator<int[]> {
+
+        private final int[] cards;
+        private final BitSet present;
+        private int first;
+        private int end;
+
+        /**
+         * The next pair partner to visit for the current first index (featureSize == 3).
+         */
+        private int next;
+
+        /**
+         * The last combination visited for the current first index (featureSize != 3), null if none yet.
+         */
+        private int[] combination;
+
+        private SetSpliterator(int[] cards, int first, int end) {
+            this(cards, presence(cards), first, end);
+        }
+
+        private SetSpliterator(int[] cards, BitSet present, int first, int end) {
+            this.cards = cards;
+            this.present = present;
+            this.first = first;
+            this.end = end;
+            next = first + 1;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super int[]> action) {
+            while (first < end) {
+                int[] set = config.featureSize == 3 ? nextByPairs() : nextByCombinations();
+                if (set != null) {
+                    action.accept(set);
+                    return true;
+                }
+                ++first;
+                next = first + 1;
+                combination = null;
             }
+            return false;
+        }
+
+        private int[] nextByPairs() {
+            while (next < cards.length) {
+                int low = Math.min(cards[first], cards[next]);
+                int high = Math.max(cards[first], cards[next]);
+                ++next;
+                int third = completeSet(low, high);
+                if (third > high && present.get(third))
+                    return new int[]{low, high, third};
+            }
+            return null;
+        }
+
+        private int[] nextByCombinations() {
+            int n = cards.length;
+            int r = config.featureSize;
+            if (combination == null) {
+                if (n - first < r) return null;
+                combination = new int[r];
+                for (int i = 0; i < r; ++i)
+                    combination[i] = first + i;
+            } else if (!nextCombination(combination, n)) return null;
+
+            int[] set = new int[r];
+            do {
+                for (int i = 0; i < r; ++i)
+                    set[i] = cards[combination[i]];
+                if (testSet(set)) {
+                    Arrays.sort(set);
+                    return set;
+                }
+            } while (nextCombination(combination, n));
+            return null;
+        }
 
-            // generate next combination in lexicographic order
-            int t = r - 1;
-            while (t != 0 && combination[t] == n - r + t) --t;
-            combination[t]++;
-            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+        @Override
+        public Spliterator<int[]> trySplit() {
+            int middle = (first + 1 + end) >>> 1;
+            if (end - middle < SPLIT_THRESHOLD / 2) return null;
+            Spliterator<int[]> upper = new SetSpliterator(cards, present, middle, end);
+            end = middle;
+            return upper;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * @return - the given cards as a bitmap over the deck.
+     */
+    private BitSet presence(int[] cards) {
+        BitSet present = new BitSet(config.deckSize);
+        for (int card : cards)
+            present.set(card);
+        return present;
+    }
+
+    /**
+     * A fork-join task searching the sets whose first card index is in [from, to).
+     */
+    private class FindSetsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] cards;
+        private final BitSet present;
+        private final int from;
+        private final int to;
+        private final Consumer<int[]> sink;
+        private final AtomicBoolean done;
+
+        private FindSetsTask(int[] cards, int from, int to, Consumer<int[]> sink, AtomicBoolean done) {
+            this(cards, presence(cards), from, to, sink, done);
+        }
+
+        private FindSetsTask(int[] cards, BitSet present, int from, int to, Consumer<int[]> sink, AtomicBoolean done) {
+            this.cards = cards;
+            this.present = present;
+            this.from = from;
+            this.to = to;
+            this.sink = sink;
+            this.done = done;
+        }
+
+        @Override
+        protected void compute() {
+            if (done.get()) return;
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int first = from; first < to; ++first) {
+                    SetSpliterator sets = new SetSpliterator(cards, present, first, first + 1);
+                    while (!done.get() && sets.tryAdvance(sink)) ;
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new FindSetsTask(cards, present, from, middle, sink, done),
+                    new FindSetsTask(cards, present, middle, to, sink, done));
         }
-        return sets;
     }
 }
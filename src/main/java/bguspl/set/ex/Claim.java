@@ -0,0 +1,72 @@
+package bguspl.set.ex;
+
+/**
+ * An immutable record of a set claimed by a player: the slots the player placed tokens on, the cards that were in
+ * those slots at the time, the table version those cards were read at, whether they form a legal set, and when the
+ * claim was made. The player checks the set itself, so the dealer only has to confirm that the cards are still there.
+ */
+public final class Claim {
+
+    /**
+     * The id of the player claiming the set.
+     */
+    public final int player;
+
+    /**
+     * The time the claim was made (as returned by System.nanoTime).
+     */
+    public final long nanoTime;
+
+    /**
+     * The table version the cards were read at.
+     */
+    public final long epoch;
+
+    /**
+     * True iff the cards form a legal set (as checked by the player).
+     */
+    public final boolean legal;
+
+    private final int[] slots;
+    private final int[] cards;
+
+    /**
+     * @param player   - the id of the player claiming the set.
+     * @param slots    - the slots of the claimed set (copied).
+     * @param cards    - the cards in those slots, respectively (copied).
+     * @param epoch    - the table version the cards were read at.
+     * @param legal    - true iff the cards form a legal set.
+     * @param nanoTime - the time the claim was made.
+     */
+    public Claim(int player, int[] slots, int[] cards, long epoch, boolean legal, long nanoTime) {
+        this.player = player;
+        this.slots = slots.clone();
+        this.cards = cards.clone();
+        this.epoch = epoch;
+        this.legal = legal;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return - the number of slots in the claim.
+     */
+    public int size() {
+        return slots.length;
+    }
+
+    /**
+     * @param i - the index in the claim.
+     * @return  - the i-th slot of the claim.
+     */
+    public int slot(int i) {
+        return slots[i];
+    }
+
+    /**
+     * @param i - the index in the claim.
+     * @return  - the card that was in the i-th slot when the claim was made.
+     */
+    public int card(int i) {
+        return cards[i];
+    }
+}
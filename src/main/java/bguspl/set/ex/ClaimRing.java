@@ -0,0 +1,111 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A bounded multi-producer/single-consumer ring of claims. Any player thread may offer claims; only the dealer
+ * thread may drain them. Every cell has a sequence number telling whether it is free for the producer at a given
+ * position (sequence == position) or holds the claim of that position (sequence == position + 1).
+ */
+public class ClaimRing {
+
+    private final Claim[] buffer;
+    private final AtomicLongArray sequence;
+    private final int mask;
+
+    /**
+     * The next position to be claimed by a producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The next position to be drained (only accessed by the consumer).
+     */
+    private long head;
+
+    /**
+     * The consumer thread, unparked whenever a claim is added (null if none is registered).
+     */
+    private volatile Thread consumer;
+
+    /**
+     * @param capacity - the minimal number of claims the ring can hold (rounded up to a power of 2).
+     */
+    public ClaimRing(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new Claim[size];
+        sequence = new AtomicLongArray(size);
+        for (int i = 0; i < size; ++i)
+            sequence.set(i, i);
+        mask = size - 1;
+    }
+
+    /**
+     * Adds a claim to the ring (thread safe, lock free).
+     *
+     * @param claim - the claim to add.
+     * @return      - false iff the ring is full.
+     */
+    public boolean offer(Claim claim) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) (position & mask);
+            long diff = sequence.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+        buffer[index] = claim;
+        // a full write, so that a consumer woken up below is sure to see the claim
+        sequence.set(index, position + 1);
+        Thread waiting = consumer;
+        if (waiting != null)
+            LockSupport.unpark(waiting);
+        return true;
+    }
+
+    /**
+     * Registers the thread to unpark whenever a claim is added, so that it can park while the ring is empty.
+     *
+     * @param consumer - the consumer thread.
+     */
+    public void setConsumer(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Passes up to max claims to the consumer, in the order they were added (single consumer only).
+     *
+     * @param consumer - receives the claims.
+     * @param max      - the maximal number of claims to drain.
+     * @return         - the number of claims drained.
+     */
+    public int drain(Consumer<Claim> consumer, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (head & mask);
+            if (sequence.get(index) != head + 1) break;
+            Claim claim = buffer[index];
+            buffer[index] = null;
+            sequence.lazySet(index, head + buffer.length);
+            ++head;
+            ++drained;
+            consumer.accept(claim);
+        }
+        return drained;
+    }
+
+    /**
+     * @return - true iff there is no claim to drain (only meaningful for the consumer).
+     */
+    public boolean isEmpty() {
+        return sequence.get((int) (head & mask)) != head + 1;
+    }
+}
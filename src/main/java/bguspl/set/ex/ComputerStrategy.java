@@ -0,0 +1,29 @@
+package bguspl.set.ex;
+
+/**
+ * Decides the key presses of a computer player. Every computer player has its own strategy instance, used by one
+ * thread at a time: its AI thread, or the executor its steps run on.
+ *
+ * A strategy never waits itself. It looks at the table and tells how long it takes to react, and is asked for the
+ * key presses once that time passed, so that a computer player taking steps holds no thread while it reacts.
+ */
+public interface ComputerStrategy {
+
+    /**
+     * Looks at the table and decides what to press next.
+     *
+     * @param table  - the table.
+     * @param player - the id of the computer player.
+     * @return       - the time to react before pressing, in milliseconds.
+     */
+    long look(Table table, int player);
+
+    /**
+     * Decides the key presses, once the time to react passed since the last look.
+     *
+     * @param table  - the table.
+     * @param player - the id of the computer player.
+     * @return       - the slots to press, in order (may be empty, to look again).
+     */
+    int[] keyPresses(Table table, int player);
+}
@@ -0,0 +1,17 @@
+package bguspl.set.ex;
+
+/**
+ * Chooses which cards the dealer draws from the deck when it fills the empty slots of the table.
+ */
+public interface DealStrategy {
+
+    /**
+     * Chooses the next card to place on the table.
+     *
+     * @param deck      - the cards left in the deck (not empty).
+     * @param table     - the table, with the cards placed so far.
+     * @param slotsLeft - the number of slots that will still be filled in this deal, including this one.
+     * @return          - the index in deck of the card to place.
+     */
+    int nextCard(Deck deck, Table table, int slotsLeft);
+}
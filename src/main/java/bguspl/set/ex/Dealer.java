@@ -3,12 +3,15 @@ package bguspl.set.ex;
 import bguspl.set.Env;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * This class manages the dealer's threads and data
@@ -25,9 +28,24 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The cards that are left in the dealer's deck.
      */
-    private final List<Integer> deck;
+    private final Deck deck;
+
+    /**
+     * The dealer's random number generator (seeded by config.seed).
+     */
+    private final Random random;
+
+    /**
+     * Tracks whether any legal set remains among the cards in the deck and on the table.
+     */
+    private final SetOracle oracle;
+
+    /**
+     * Chooses which cards are drawn from the deck.
+     */
+    private final DealStrategy dealStrategy;
 
     /**
      * True iff game should be terminated due to an external event.
@@ -35,23 +53,60 @@ public class Dealer implements Runnable {
     private volatile boolean terminate;
 
     /**
-     * The time when the dealer needs to reshuffle the deck due to turn timeout.
+     * The dealer thread (set once it started), parked while there is nothing to do.
      */
+    private volatile Thread dealerThread;
 
     private List<Integer> empty_Slots;
-    private long reshuffleTime = 60000;
 
+    /**
+     * The claims taken out of the claim ring, waiting to be settled together (only used by the dealer thread).
+     */
+    private final List<Claim> pending = new ArrayList<>();
+
+    /**
+     * The slots won by an earlier claim of the batch being settled (only used by the dealer thread).
+     */
+    private final boolean[] taken;
+
+    /**
+     * The time when the dealer needs to reshuffle the deck due to turn timeout.
+     */
+    private long reshuffleTime = Long.MAX_VALUE;
+
+    /**
+     * The time of the last reshuffle or set found (when the turn timer shows the elapsed time instead).
+     */
     private long start_time;
 
+    /**
+     * The time when the turn timer display needs to be updated next.
+     */
+    private long nextDisplayTime;
+
     private boolean set_Found = false;
 
+    /**
+     * Receives the time from every claim to its verdict, in nanoseconds (null if none).
+     */
+    private volatile LongConsumer verdictListener;
+
+    /**
+     * The threads of the players (started by the dealer thread), except for the computer players taking steps.
+     */
+    private final List<Thread> playerThreads = new ArrayList<>();
+
 
     public Dealer(Env env, Table table, Player[] players) {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        deck = new Deck(env.config.deckSize);
+        random = new Random(env.config.seed);
+        oracle = new SetOracle(env);
+        dealStrategy = env.config.dealStrategy.equalsIgnoreCase("GuaranteeSet") ? new SetGuaranteeingDeal(env, random) : new RandomDeal(random);
         empty_Slots = new ArrayList<>();
+        taken = new boolean[env.config.tableSize];
 
         //At first all slots are empty
         for (int i = 0; i < env.config.tableSize; i++) {
@@ -67,32 +122,52 @@ public class Dealer implements Runnable {
     @Override
     public void run() {
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
-        env.ui.setCountdown(reshuffleTime, false);
+        dealerThread = Thread.currentThread();
+        table.claims.setConsumer(dealerThread);
         for (Player player : players) {
-            Thread player_Thread = new Thread(player, "" + player.id);
+            if (player.takesSteps()) {
+                player.startSteps();
+                continue;
+            }
+            Thread player_Thread = env.threads.newThread(player, "" + player.id);
+            playerThreads.add(player_Thread);
             player_Thread.start();
         }
 
         while (!shouldFinish()) {
             placeCardsOnTable();
+            updateTimerDisplay(true);
             timerLoop();
             updateTimerDisplay(false);
             removeAllCardsFromTable();
         }
         announceWinners();
+        terminate();
+        for (Thread player_Thread : playerThreads) {
+            try {
+                player_Thread.join();
+            } catch (InterruptedException ignored) {
+            }
+        }
+        for (Player player : players) {
+            try {
+                if (player.takesSteps()) player.awaitSteps();
+            } catch (InterruptedException ignored) {
+            }
+        }
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     /**
-     * The inner loop of the dealer thread that runs as long as the countdown did not time out.
+     * The inner loop of the dealer thread that runs until the cards on the table should be reshuffled.
      */
     private void timerLoop() {
-        start_time = System.currentTimeMillis();
-        while (!terminate && System.currentTimeMillis() - start_time < reshuffleTime) {
+        while (!terminate && !shouldReshuffle()) {
             sleepUntilWokenOrTimeout();
-            updateTimerDisplay(set_Found);
             removeCardsFromTable();
             placeCardsOnTable();
+            updateTimerDisplay(set_Found);
+            updateFreezeDisplays();
         }
     }
 
@@ -104,7 +179,9 @@ public class Dealer implements Runnable {
         terminate = true;
 
         // Wake up the dealer thread if it is sleeping.
-        Thread.currentThread().interrupt();
+        Thread dealer = dealerThread;
+        if (dealer != null)
+            LockSupport.unpark(dealer);
 
         // Terminate all player threads.
         for (Player player : players) {
@@ -112,30 +189,43 @@ public class Dealer implements Runnable {
         }
     }
 
+    /**
+     * Sets who receives the time from every claim to its verdict (e.g. to measure the verdict latency).
+     *
+     * @param listener - receives the latencies in nanoseconds, on the dealer thread (null for none).
+     */
+    public void setVerdictListener(LongConsumer listener) {
+        verdictListener = listener;
+    }
+
     /**
      * Check if the game should be terminated or the game end conditions are met.
      *
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !oracle.hasSet();
+    }
+
+    /**
+     * @return true iff the cards on the table should be reshuffled: when the countdown timed out, or, when there is no
+     *         countdown (TurnTimeoutSeconds <= 0), as soon as there is no legal set on the table.
+     */
+    private boolean shouldReshuffle() {
+        if (env.config.turnTimeoutMillis > 0)
+            return System.currentTimeMillis() >= reshuffleTime;
+        return !table.hasSet();
     }
 
     /**
      * Checks cards should be removed from the table and removes them.
      */
     private void removeCardsFromTable() {
-        try {
-            table.local_Lock.lock();
-            for (int i = 0; i < table.claimed_Set.size(); i++) {
-                ArrayList<Integer> slot_set = table.claimed_Set.remove();
-                int player_Id = table.claimed_Set_player_Id.remove();
-                set_Checker(new ArrayList<>(slot_set), player_Id);
-            }
-        } finally {
-            table.local_Lock.unlock();
+        table.claims.drain(pending::add, Integer.MAX_VALUE);
+        if (!pending.isEmpty()) {
+            set_Checker(pending);
+            pending.clear();
         }
-
     }
 
     /**
@@ -143,54 +233,78 @@ public class Dealer implements Runnable {
      */
     private void placeCardsOnTable() {
         try {
-            table.local_Lock.lock();
+            table.lockAll();
             if (empty_Slots.size() > 0 && deck.size() > 0) {
-                Collections.shuffle(empty_Slots);
+                Collections.shuffle(empty_Slots, random);
 
-                for (Integer slot : empty_Slots) {
-                    Random random = new Random();
-                    table.placeCard(deck.remove(random.nextInt(deck.size())), slot);
+                while (!empty_Slots.isEmpty() && !deck.isEmpty()) {
+                    int slotsLeft = Math.min(empty_Slots.size(), deck.size());
+                    int slot = empty_Slots.remove(empty_Slots.size() - 1);
+                    table.placeCard(deck.draw(dealStrategy.nextCard(deck, table, slotsLeft)), slot);
                 }
-
-                empty_Slots = new ArrayList<>();
             }
             else if (shouldFinish())
                 terminate();
 
 
         } finally {
-            table.local_Lock.unlock();
+            table.unlockAll();
         }
 
 
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Sleep until a claim arrives or until the next deadline: the reshuffle, the next update of the turn timer, or
+     * the next update of a player's freeze countdown.
      */
     private void sleepUntilWokenOrTimeout() {
+        long deadline = Math.min(reshuffleTime, nextDisplayTime);
+        for (Player player : players)
+            deadline = Math.min(deadline, player.nextFreezeDisplayTime());
 
+        long now = System.currentTimeMillis();
+        if (deadline > now && table.claims.isEmpty() && !terminate)
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(deadline - now));
     }
 
     /**
-     * Reset and/or update the countdown and the countdown display.
+     * Reset and/or update the countdown and the countdown display. The display is only updated when the value it
+     * shows changes: every displayTickMillis, or every warningDisplayTickMillis while the warning is shown.
+     *
+     * @param reset - true iff the countdown should restart (after a reshuffle or a set found).
      */
     private void updateTimerDisplay(boolean reset) {
-        long curr_time = System.currentTimeMillis();
-        if (!set_Found) {
-            env.ui.setCountdown(reshuffleTime - (curr_time - start_time), false);
-
-        } else {
-            start_time = curr_time;
-            env.ui.setCountdown(reshuffleTime, false);
+        long now = System.currentTimeMillis();
+        if (reset) {
+            start_time = now;
+            reshuffleTime = env.config.turnTimeoutMillis > 0 ? now + env.config.turnTimeoutMillis : Long.MAX_VALUE;
+            nextDisplayTime = now;
             set_Found = false;
         }
+        if (now < nextDisplayTime) return;
+
+        if (env.config.turnTimeoutMillis > 0) {
+            long left = Math.max(0, reshuffleTime - now);
+            boolean warn = left < env.config.turnTimeoutWarningMillis;
+            env.ui.setCountdown(left, warn);
+            long tick = warn ? env.config.warningDisplayTickMillis : env.config.displayTickMillis;
+            // the countdown shows whole ticks (rounded down), so it changes when left crosses a multiple of tick
+            nextDisplayTime = now + (left % tick == 0 ? tick : left % tick);
+        } else if (env.config.turnTimeoutMillis == 0) {
+            env.ui.setElapsed(now - start_time);
+            nextDisplayTime = now + env.config.displayTickMillis;
+        } else
+            nextDisplayTime = Long.MAX_VALUE;
+    }
 
-        if (reshuffleTime - (curr_time - start_time) < 10000) {
-            env.ui.setCountdown(reshuffleTime - (curr_time - start_time), true);
-        }
-
-
+    /**
+     * Counts the players' freezes down in the ui (the players themselves never sleep through a freeze).
+     */
+    private void updateFreezeDisplays() {
+        long now = System.currentTimeMillis();
+        for (Player player : players)
+            player.updateFreezeDisplay(now);
     }
 
     /**
@@ -198,12 +312,10 @@ public class Dealer implements Runnable {
      */
     private void removeAllCardsFromTable() {
         try {
-            table.local_Lock.lock();
-            for (Integer slot : table.cardToSlot) {
-                if (slot != null) {
-                    for (int i = 0; i < players.length; i++) {
-                        table.removeToken(i, slot);
-                    }
+            table.lockAll();
+            for (int slot : table.cardToSlot) {
+                if (slot != Table.NONE) {
+                    table.removeTokens(slot);
                     deck.add(table.slotToCard[slot]);
                     empty_Slots.add(slot);
                     table.removeCard(slot);
@@ -211,9 +323,8 @@ public class Dealer implements Runnable {
 
                 }
             }
-            start_time = System.currentTimeMillis();
         } finally {
-            table.local_Lock.unlock();
+            table.unlockAll();
         }
 
     }
@@ -231,35 +342,91 @@ public class Dealer implements Runnable {
     }
 
 
-    private void set_Checker(List<Integer> slot_set, int player_id) {
-        if (slot_set != null && slot_set.size() == 3) {
-
-            //Transfer slots to cards
-            int[] cards = slot_set.stream()
-                    .mapToInt(slot -> table.slotToCard[slot])
-                    .toArray();
-
-
-            if (env.util.testSet(cards)) {
-                //set_Found = true;
-                //SET point flag to true
-                //players[player_id].point_freeze = true;
-
-                for (Integer slot : slot_set) {
-                    for (Integer id : table.getSlotToPlayer()[slot]) {
-                        table.removeToken(id, slot);
+    /**
+     * Settles a batch of claims in the order they were made, and removes the cards of the legal ones from the table
+     * and from the game, all at once. The players already checked their sets, so the dealer only confirms that the
+     * cards and tokens of every claim are still in place: if the table version did not change since the claim, the
+     * cards are known to be there. A claim sharing a slot with an earlier legal claim of the batch is stale, and is
+     * dropped without looking any further. Only the claimed slots are locked meanwhile. Package-private so that the
+     * claim verification path can be benchmarked.
+     *
+     * @param claims - the claims to settle (sorted in place by the time they were made).
+     */
+    void set_Checker(List<Claim> claims) {
+        claims.sort(Comparator.comparingLong(claim -> claim.nanoTime));
+        int[] slots = claimedSlots(claims);
+        int[] won = new int[slots.length];
+        int count = 0;
+        table.lockSlots(slots);
+        try {
+            for (Claim claim : claims) {
+                if (isStale(claim)) continue;
+                if (claim.legal) {
+                    set_Found = true;
+                    players[claim.player].point();
+                    for (int i = 0; i < claim.size(); ++i) {
+                        taken[claim.slot(i)] = true;
+                        won[count++] = claim.slot(i);
                     }
-                    deck.remove(table.slotToCard[slot]);
-                    table.removeCard(slot);
+                } else
+                    players[claim.player].penalty();
+            }
+
+            if (count > 0) {
+                won = Arrays.copyOf(won, count);
+                for (int slot : won) {
+                    table.removeTokens(slot);
+                    oracle.remove(table.slotToCard[slot]);
                     empty_Slots.add(slot);
+                    taken[slot] = false;
                 }
-
-            } else {
-                //SET freeze of wrong set flag to false
-                // players[player_id].penalty_time= true;
+                table.removeCards(won);
             }
+        } finally {
+            table.unlockSlots(slots);
+        }
 
+        LongConsumer listener = verdictListener;
+        if (listener != null) {
+            long now = System.nanoTime();
+            for (Claim claim : claims)
+                listener.accept(now - claim.nanoTime);
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * @param claim - a claim being settled.
+     * @return      - true iff any of its cards was replaced or taken by an earlier claim of the batch, or any of its
+     *                tokens was removed, since it was made.
+     */
+    private boolean isStale(Claim claim) {
+        if (claim.size() != 3) return true;
+        boolean unchanged = table.version() == claim.epoch;
+        for (int i = 0; i < claim.size(); ++i) {
+            int slot = claim.slot(i);
+            if (taken[slot]) return true;
+            if (!unchanged && table.cardAt(slot) != claim.card(i)) return true;
+            if (!table.hasToken(claim.player, slot)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return - the slots of all the claims, without repetitions, in ascending order (the order in which to lock them).
+     */
+    private int[] claimedSlots(List<Claim> claims) {
+        boolean[] claimed = new boolean[env.config.tableSize];
+        int count = 0;
+        for (Claim claim : claims)
+            for (int i = 0; i < claim.size(); ++i)
+                if (!claimed[claim.slot(i)]) {
+                    claimed[claim.slot(i)] = true;
+                    ++count;
+                }
+        int[] slots = new int[count];
+        for (int slot = 0, i = 0; slot < claimed.length; ++slot)
+            if (claimed[slot]) slots[i++] = slot;
+        return slots;
+    }
+
+}
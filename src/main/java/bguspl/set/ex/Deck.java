@@ -0,0 +1,103 @@
+package bguspl.set.ex;
+
+/**
+ * The cards left in the dealer's deck, in no particular order. Drawing, adding and removing a card take O(1):
+ * a card is removed by moving the last card into its place.
+ *
+ * @inv cards[position[c]] == c iff the deck contains c
+ */
+public class Deck {
+
+    /**
+     * The cards in the deck (only the first size entries are used).
+     */
+    private final int[] cards;
+
+    /**
+     * Mapping between a card and its index in cards (NONE if it is not in the deck).
+     */
+    private final int[] position;
+
+    /**
+     * The number of cards in the deck.
+     */
+    private int size;
+
+    /**
+     * The value of position entries for a card that is not in the deck.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * @param deckSize - the number of cards in the game.
+     * @post - the deck contains every card.
+     */
+    public Deck(int deckSize) {
+        cards = new int[deckSize];
+        position = new int[deckSize];
+        for (int card = 0; card < deckSize; ++card) {
+            cards[card] = card;
+            position[card] = card;
+        }
+        size = deckSize;
+    }
+
+    /**
+     * @return - the number of cards in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return - true iff the deck has no cards.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index - an index in [0, size).
+     * @return      - the card at the index (indices change as cards are drawn).
+     */
+    public int card(int index) {
+        return cards[index];
+    }
+
+    /**
+     * Draws the card at an index out of the deck.
+     *
+     * @param index - an index in [0, size).
+     * @return      - the card drawn.
+     */
+    public int draw(int index) {
+        int card = cards[index];
+        remove(card);
+        return card;
+    }
+
+    /**
+     * Removes a card from the deck, if it is there.
+     *
+     * @param card - the card to remove.
+     */
+    public void remove(int card) {
+        int index = position[card];
+        if (index == NONE) return;
+        int last = cards[--size];
+        cards[index] = last;
+        position[last] = index;
+        position[card] = NONE;
+    }
+
+    /**
+     * Returns a card to the deck, if it is not there already.
+     *
+     * @param card - the card to return.
+     */
+    public void add(int card) {
+        if (position[card] != NONE) return;
+        cards[size] = card;
+        position[card] = size++;
+    }
+}
@@ -0,0 +1,95 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * This class prints the hints for the table to the console on a background thread, so that key handling never
+ * waits for the hints to be computed or printed. The hints text is cached and only rebuilt after the table changed.
+ */
+public class HintEngine {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    private final Table table;
+
+    /**
+     * The single thread on which hints are computed and printed.
+     */
+    private final ExecutorService sink;
+
+    /**
+     * True iff a print request is waiting to run (requests made meanwhile are merged into it).
+     */
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+
+    /**
+     * The table version the cached hints were computed for (only accessed by the sink thread).
+     */
+    private long cachedVersion = -1;
+
+    /**
+     * The cached hints text (only accessed by the sink thread).
+     */
+    private String cachedHints = "";
+
+    public HintEngine(Env env, Table table) {
+        this.env = env;
+        this.table = table;
+        sink = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hints");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Asks for the hints to be printed, without waiting for it.
+     */
+    public void request() {
+        if (pending.compareAndSet(false, true))
+            sink.execute(this::print);
+    }
+
+    private void print() {
+        pending.set(false);
+        if (table.version() != cachedVersion)
+            render();
+        System.out.print(cachedHints);
+    }
+
+    /**
+     * Rebuilds the hints text from a snapshot of the table and of its set index, so the sets are never searched for.
+     */
+    private void render() {
+        int[] cards = new int[env.config.tableSize];
+        List<int[]> sets = new ArrayList<>();
+        cachedVersion = table.snapshot(cards, sets);
+        int[] cardToSlot = new int[env.config.deckSize];
+        for (int slot = 0; slot < cards.length; ++slot)
+            if (cards[slot] != Table.NONE)
+                cardToSlot[cards[slot]] = slot;
+
+        List<List<Integer>> slots = new ArrayList<>();
+        for (int[] set : sets)
+            slots.add(Arrays.stream(set).map(card -> cardToSlot[card]).sorted().boxed().collect(Collectors.toList()));
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < sets.size(); ++i) {
+            int[][] features = env.util.cardsToFeatures(sets.get(i));
+            sb.append("Hint: Set found: slots: ").append(slots.get(i))
+                    .append(" features: ").append(Arrays.deepToString(features)).append(System.lineSeparator());
+        }
+        cachedHints = sb.toString();
+    }
+}
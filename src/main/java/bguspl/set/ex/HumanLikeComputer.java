@@ -0,0 +1,57 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plays like a person: its reaction time is log-normally distributed (mostly around config.computerReactionMillis,
+ * with a long tail of slow reactions), and now and then it claims three cards that are not a set. Like a person,
+ * it claims nothing while the table has no set.
+ */
+public class HumanLikeComputer extends SolverComputer {
+
+    /**
+     * The probability of claiming three random slots instead of a set (when the table has a set).
+     */
+    private static final double MISTAKE_RATE = 0.1;
+
+    /**
+     * @param env    - the game environment objects.
+     * @param random - the player's random number generator.
+     */
+    public HumanLikeComputer(Env env, Random random) {
+        super(env, random);
+    }
+
+    @Override
+    protected int[] chooseSlots(List<int[]> sets) {
+        if (sets.isEmpty() || random.nextDouble() >= MISTAKE_RATE)
+            return super.chooseSlots(sets);
+
+        // the table has a set, so it has at least three cards
+        int[] slots = new int[3];
+        for (int i = 0; i < slots.length; ++i) {
+            int slot;
+            do {
+                slot = random.nextInt(cards.length);
+            } while (cards[slot] == Table.NONE || contains(slots, i, slot));
+            slots[i] = slot;
+        }
+        return slots;
+    }
+
+    @Override
+    protected long reactionMillis() {
+        double median = Math.max(1, env.config.computerReactionMillis);
+        double sigma = env.config.computerReactionJitterMillis / median;
+        return Math.round(median * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    private static boolean contains(int[] slots, int count, int slot) {
+        for (int i = 0; i < count; ++i)
+            if (slots[i] == slot) return true;
+        return false;
+    }
+}
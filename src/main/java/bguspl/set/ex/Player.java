@@ -1,18 +1,20 @@
 package bguspl.set.ex;
 
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 import bguspl.set.Env;
 
-import static java.lang.Thread.sleep;
-
 /**
  * This class manages the players' threads and data
  *
@@ -21,11 +23,11 @@ import static java.lang.Thread.sleep;
  */
 public class Player implements Runnable {
 
-    private final Condition queueNotFull;
-
+    /**
+     * The most key presses waiting for the player thread (further presses of a human player are dropped).
+     */
+    private static final int KEY_PRESS_CAPACITY = 3;
 
-    public volatile boolean point_freeze = false;
-    public volatile boolean penalty_time = false;
     /**
      * The game environment object.
      */
@@ -44,12 +46,12 @@ public class Player implements Runnable {
     /**
      * The thread representing the current player.
      */
-    private Thread playerThread;
+    private volatile Thread playerThread;
 
     /**
      * The thread of the AI (computer) player (an additional thread used to generate key presses).
      */
-    private Thread aiThread;
+    private volatile Thread aiThread;
 
     /**
      * True iff the player is human (not a computer player).
@@ -67,9 +69,44 @@ public class Player implements Runnable {
     private int score;
 
     /**
-     *
+     * The time (as returned by System.currentTimeMillis) until which the player is frozen and key presses are ignored.
+     */
+    private volatile long freezeUntil;
+
+    /**
+     * The freeze time last shown in the ui, rounded up to whole seconds (0 when no freeze is shown).
+     */
+    private long freezeShown;
+
+    /**
+     * The slots pressed and not handled yet. The input thread (or the AI thread) is its only producer and the player
+     * thread its only consumer, which blocks on it while there is nothing to handle.
+     */
+    private final BlockingQueue<Integer> keyPress_Queue;
+
+    /**
+     * Released by the player thread for every key press of the AI thread it handled, so that the AI thread can wait
+     * for its presses to take effect before looking at the table again.
      */
-    public Queue<Integer> keyPress_Queue;
+    private final Semaphore pressesHandled = new Semaphore(0);
+
+    /**
+     * The strategy of a computer player taking steps (null for a player running on threads).
+     */
+    private ComputerStrategy strategy;
+
+    /**
+     * The next step of a computer player taking steps, while it waits to run (null while a step runs).
+     * Guarded by stepLock, together with the termination of a player taking steps.
+     */
+    private ScheduledFuture<?> nextStep;
+
+    private final ReentrantLock stepLock = new ReentrantLock();
+
+    /**
+     * Counted down once a computer player taking steps took its last one.
+     */
+    private final CountDownLatch stepsOver = new CountDownLatch(1);
 
     /**
      * The class constructor.
@@ -86,10 +123,7 @@ public class Player implements Runnable {
         this.id = id;
         this.human = human;
         score = 0;
-        keyPress_Queue = new LinkedList<>();
-        queueNotFull = table.local_Lock.newCondition();
-
-
+        keyPress_Queue = new ArrayBlockingQueue<>(KEY_PRESS_CAPACITY);
     }
 
     /**
@@ -102,23 +136,13 @@ public class Player implements Runnable {
         if (!human) createArtificialIntelligence();
 
         while (!terminate) {
-
-            if (point_freeze)
-                point();
-
-            if (penalty_time)
-                penalty();
-
-
             try {
-                table.local_Lock.lock();
-                if (!keyPress_Queue.isEmpty()) {
-                    place_Token_on_Table();
-                    queueNotFull.signalAll();
-                }
-
-            } finally {
-                table.local_Lock.unlock();
+                int slot = keyPress_Queue.take();
+                if (!isFrozen())
+                    table.toggleToken(id, slot);
+                if (!human) pressesHandled.release();
+            } catch (InterruptedException ignored) {
+                // woken up to check whether to terminate
             }
         }
 
@@ -132,44 +156,140 @@ public class Player implements Runnable {
 
     /**
      * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * key presses, as decided by the configured computer strategy. If the queue of key presses is full, the thread
+     * waits until it is not full, and then until the player thread handled all of them.
      */
     private void createArtificialIntelligence() {
-        // note: this is a very very smart AI (!)
-            aiThread = new Thread(() -> {
+        ComputerStrategy strategy = newStrategy();
+
+            aiThread = env.threads.newThread(() -> {
             env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
             while (!terminate) {
                 try {
-                    table.local_Lock.lock();
-
-                    //if queue full wait
-                    while (keyPress_Queue.size() == 3) {
-                        queueNotFull.await();
+                    //wait out a freeze rather than pressing keys that would be ignored
+                    long frozen = freezeUntil - System.currentTimeMillis();
+                    if (frozen > 0) {
+                        Thread.sleep(frozen);
+                        continue;
                     }
 
-                    //create random key press
-                    Random random = new Random();
-                    keyPress_Queue.add(random.nextInt(env.config.tableSize));
-
-
-
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                } finally {
-                    table.local_Lock.unlock();
+                    //pass on the strategy's key presses, once it reacted, waiting while the queue is full
+                    long reaction = strategy.look(table, id);
+                    if (reaction > 0) Thread.sleep(reaction);
+                    int[] presses = strategy.keyPresses(table, id);
+                    for (int slot : presses)
+                        keyPress_Queue.put(slot);
+
+                    //let the player thread handle them before the strategy looks at the tokens again
+                    pressesHandled.acquire(presses.length);
+                } catch (InterruptedException ignored) {
+                    // woken up to check whether to terminate
                 }
-
             }
             env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
         }, "computer-" + id);
         aiThread.start();
     }
 
+    /**
+     * @return - a new instance of the configured computer strategy.
+     */
+    private ComputerStrategy newStrategy() {
+        Random random = new Random(env.config.seed + id + 1);
+        if (env.config.computerStrategy.equalsIgnoreCase("Solver"))
+            return new SolverComputer(env, random);
+        if (env.config.computerStrategy.equalsIgnoreCase("HumanLike"))
+            return new HumanLikeComputer(env, random);
+        return new RandomComputer(random, env.config.tableSize);
+    }
+
+    /**
+     * @return - true iff the player is a computer player taking steps on env.steps, instead of running on threads.
+     */
+    public boolean takesSteps() {
+        return !human && env.steps != null;
+    }
+
+    /**
+     * Starts a computer player taking steps (instead of running it on a thread): it looks at the table, reacts and
+     * presses its keys in short tasks on env.steps, scheduled for when the reaction time or a freeze is over, so that
+     * it holds no thread while it waits.
+     */
+    public void startSteps() {
+        strategy = newStrategy();
+        schedule(this::look, 0);
+    }
+
+    /**
+     * Waits until a computer player taking steps took its last one, after it was terminated.
+     */
+    public void awaitSteps() throws InterruptedException {
+        stepsOver.await();
+    }
+
+    private void look() {
+        if (!beginStep()) return;
+        long frozen = freezeUntil - System.currentTimeMillis();
+        if (frozen > 0)
+            schedule(this::look, frozen);
+        else
+            schedule(this::press, strategy.look(table, id));
+    }
+
+    private void press() {
+        if (!beginStep()) return;
+        for (int slot : strategy.keyPresses(table, id))
+            if (!isFrozen())
+                table.toggleToken(id, slot);
+        schedule(this::look, 0);
+    }
+
+    /**
+     * @return - true iff the step should be taken (false if the player was terminated while it waited to run).
+     */
+    private boolean beginStep() {
+        stepLock.lock();
+        try {
+            nextStep = null;
+            return !terminate;
+        } finally {
+            stepLock.unlock();
+        }
+    }
+
+    /**
+     * Schedules the next step, unless the player was terminated meanwhile, which makes this step its last one.
+     */
+    private void schedule(Runnable step, long delayMillis) {
+        stepLock.lock();
+        try {
+            if (terminate)
+                stepsOver.countDown();
+            else
+                nextStep = env.steps.schedule(step, delayMillis, TimeUnit.MILLISECONDS);
+        } finally {
+            stepLock.unlock();
+        }
+    }
+
     /**
      * Called when the game should be terminated due to an external event.
      */
     public void terminate() {
-        terminate=true;
+        stepLock.lock();
+        try {
+            terminate = true;
+            // a step waiting to run is dropped; a step running sees the flag when it schedules the next one
+            if (nextStep != null) {
+                nextStep.cancel(false);
+                nextStep = null;
+                stepsOver.countDown();
+            }
+        } finally {
+            stepLock.unlock();
+        }
+        if (aiThread != null) aiThread.interrupt();
+        if (playerThread != null) playerThread.interrupt();
     }
 
     /**
@@ -178,14 +298,9 @@ public class Player implements Runnable {
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
-        try {
-            //Take local key
-            table.local_Lock.lock();
-            keyPress_Queue.add(slot);
-            table.hints();
-        } finally {
-            table.local_Lock.unlock();
-        }
+        if (!isFrozen())
+            keyPress_Queue.offer(slot);
+        table.hints();
     }
 
     /**
@@ -193,58 +308,73 @@ public class Player implements Runnable {
      *
      * @post - the player's score is increased by 1.
      * @post - the player's score is updated in the ui.
+     * @post - the player is frozen for config.pointFreezeMillis.
      */
     public void point() {
         env.ui.setScore(id, ++score);
-        env.ui.setFreeze(id, 1000);
         if (score > table.highest_score)
             table.highest_score = score;
-
-        // Count down from 1 to 0 and update the freeze time for the player
-        for (int i = 1; i >= 0; i--) {
-            env.ui.setFreeze(id, i * 1000L);
-            try {
-                sleep(1000);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
-        point_freeze = false;
-
-
+        freeze(env.config.pointFreezeMillis);
     }
 
     /**
      * Penalize a player and perform other related actions.
+     *
+     * @post - the player is frozen for config.penaltyFreezeMillis.
      */
     public void penalty() {
-        // Count down from 4 to 0 and update the freeze time for the player
-        for (int i = 4; i >= 0; i--) {
-            env.ui.setFreeze(id, i * 1000L);
-            try {
-                sleep(1000);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
-        penalty_time = false;
+        freeze(env.config.penaltyFreezeMillis);
+    }
 
+    /**
+     * Freezes the player: key presses are ignored until the deadline passes. Nothing sleeps meanwhile, the dealer
+     * counts the freeze down in the ui (see updateFreezeDisplay).
+     *
+     * @param millis - the freeze duration.
+     */
+    private void freeze(long millis) {
+        freezeUntil = System.currentTimeMillis() + millis;
+        freezeShown = roundUpToSeconds(millis);
+        env.ui.setFreeze(id, freezeShown);
     }
 
-    public int getScore() {
-        return score;
+    /**
+     * @return - true iff the player is frozen.
+     */
+    public boolean isFrozen() {
+        return freezeUntil > System.currentTimeMillis();
     }
 
+    /**
+     * Shows the time left on the player's freeze in the ui, whenever it reached another whole second.
+     * Called by the dealer thread only.
+     *
+     * @param now - the current time (as returned by System.currentTimeMillis).
+     */
+    void updateFreezeDisplay(long now) {
+        if (freezeShown == 0) return;
+        long shown = roundUpToSeconds(Math.max(0, freezeUntil - now));
+        if (shown != freezeShown) {
+            freezeShown = shown;
+            env.ui.setFreeze(id, shown);
+        }
+    }
 
-    public void place_Token_on_Table() {
-        int slot = keyPress_Queue.remove();
+    /**
+     * @return - the time (as returned by System.currentTimeMillis) the freeze countdown in the ui should be updated
+     *           at next, or Long.MAX_VALUE if no freeze is shown.
+     */
+    long nextFreezeDisplayTime() {
+        return freezeShown == 0 ? Long.MAX_VALUE : freezeUntil - (freezeShown - 1000);
+    }
 
-        if (table.playerToSlot[id].contains(slot)) {
-            table.removeToken(id, slot);
-        } else if (table.playerToSlot[id].size() < 3) {
-            table.placeToken(id, slot);
-        }
+    private static long roundUpToSeconds(long millis) {
+        return (millis + 999) / 1000 * 1000;
+    }
 
+    public int getScore() {
+        return score;
     }
 
+
 }
\ No newline at end of file
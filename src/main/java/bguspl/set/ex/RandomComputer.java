@@ -0,0 +1,32 @@
+package bguspl.set.ex;
+
+import java.util.Random;
+
+/**
+ * Presses slots uniformly at random, as fast as the player takes them.
+ */
+public class RandomComputer implements ComputerStrategy {
+
+    private final Random random;
+
+    private final int tableSize;
+
+    /**
+     * @param random    - the player's random number generator.
+     * @param tableSize - the number of slots on the table.
+     */
+    public RandomComputer(Random random, int tableSize) {
+        this.random = random;
+        this.tableSize = tableSize;
+    }
+
+    @Override
+    public long look(Table table, int player) {
+        return 0;
+    }
+
+    @Override
+    public int[] keyPresses(Table table, int player) {
+        return new int[]{random.nextInt(tableSize)};
+    }
+}
@@ -0,0 +1,23 @@
+package bguspl.set.ex;
+
+import java.util.Random;
+
+/**
+ * Draws every card uniformly at random from the deck.
+ */
+public class RandomDeal implements DealStrategy {
+
+    private final Random random;
+
+    /**
+     * @param random - the dealer's random number generator.
+     */
+    public RandomDeal(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public int nextCard(Deck deck, Table table, int slotsLeft) {
+        return random.nextInt(deck.size());
+    }
+}
@@ -0,0 +1,54 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Draws cards at random, except for the last card of a deal: if the table has no legal set by then, the last card
+ * is drawn (at random) among the deck cards that complete a set with two cards on the table, if there are any.
+ * Only applies when sets are made of three cards (featureSize == 3), otherwise it behaves like RandomDeal.
+ */
+public class SetGuaranteeingDeal implements DealStrategy {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    private final Random random;
+
+    /**
+     * @param env    - the game environment objects.
+     * @param random - the dealer's random number generator.
+     */
+    public SetGuaranteeingDeal(Env env, Random random) {
+        this.env = env;
+        this.random = random;
+    }
+
+    @Override
+    public int nextCard(Deck deck, Table table, int slotsLeft) {
+        if (slotsLeft > 1 || env.config.featureSize != 3 || table.hasSet())
+            return random.nextInt(deck.size());
+
+        // mark every card that would complete a set with a pair of cards on the table
+        List<Integer> onTable = new ArrayList<>();
+        for (int card : table.slotToCard)
+            if (card != Table.NONE) onTable.add(card);
+        BitSet wanted = new BitSet(env.config.deckSize);
+        for (int i = 0; i < onTable.size(); ++i)
+            for (int j = i + 1; j < onTable.size(); ++j)
+                wanted.set(env.util.completeSet(onTable.get(i), onTable.get(j)));
+
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < deck.size(); ++i)
+            if (wanted.get(deck.card(i))) candidates.add(i);
+
+        if (candidates.isEmpty()) return random.nextInt(deck.size());
+        return candidates.get(random.nextInt(candidates.size()));
+    }
+}
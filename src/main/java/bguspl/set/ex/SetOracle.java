@@ -0,0 +1,118 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * This class tracks whether any legal set remains among the cards that are still in the game (in the deck or on
+ * the table). Cards leave the game only when they are part of a set that was found.
+ *
+ * @inv cards[position[c]] == c iff inGame[c]
+ */
+public class SetOracle {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * True iff the card is still in the game.
+     */
+    private final boolean[] inGame;
+
+    /**
+     * The cards that are still in the game (only the first size entries are used).
+     */
+    private final int[] cards;
+
+    /**
+     * Mapping between a card and its index in cards (only meaningful while the card is in the game).
+     */
+    private final int[] position;
+
+    /**
+     * The number of cards still in the game.
+     */
+    private int size;
+
+    /**
+     * The number of legal sets among the cards still in the game (only maintained when featureSize == 3).
+     */
+    private long sets;
+
+    /**
+     * True iff anySet must be recomputed before it is read (only when sets are not made of three cards).
+     */
+    private boolean dirty;
+
+    /**
+     * The cached answer when sets are not made of three cards.
+     */
+    private boolean anySet;
+
+    /**
+     * @param env - the game environment objects.
+     * @post - every card of the deck is in the game.
+     */
+    public SetOracle(Env env) {
+        this.env = env;
+        int deckSize = env.config.deckSize;
+        inGame = new boolean[deckSize];
+        cards = new int[deckSize];
+        position = new int[deckSize];
+        for (int card = 0; card < deckSize; ++card) {
+            inGame[card] = true;
+            cards[card] = card;
+            position[card] = card;
+        }
+        size = deckSize;
+
+        // every pair of cards is completed by exactly one card, so each set is counted by 3 of the C(n, 2) pairs
+        sets = (long) deckSize * (deckSize - 1) / 6;
+        dirty = env.config.featureSize != 3;
+    }
+
+    /**
+     * Removes a card from the game.
+     *
+     * @param card - the card that left the game.
+     * @post - the card is no longer considered when looking for sets.
+     */
+    public void remove(int card) {
+        if (!inGame[card]) return;
+        inGame[card] = false;
+        int last = cards[--size];
+        cards[position[card]] = last;
+        position[last] = position[card];
+
+        if (env.config.featureSize != 3) {
+            dirty = true;
+            return;
+        }
+
+        // each set {card, other, third} is met twice (from other and from third), so only other < third counts
+        for (int i = 0; i < size; ++i) {
+            int other = cards[i];
+            int third = env.util.completeSet(card, other);
+            if (third > other && inGame[third])
+                --sets;
+        }
+    }
+
+    /**
+     * @return - true iff there is at least one legal set among the cards still in the game.
+     */
+    public boolean hasSet() {
+        if (env.config.featureSize == 3) return sets > 0;
+        if (dirty) {
+            List<Integer> remaining = Arrays.stream(cards, 0, size).boxed().collect(Collectors.toList());
+            anySet = !env.util.findSets(remaining, 1).isEmpty();
+            dirty = false;
+        }
+        return anySet;
+    }
+}
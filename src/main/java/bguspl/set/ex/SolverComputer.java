@@ -0,0 +1,125 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Picks a legal set from a snapshot of the table's set index, waits its reaction time, and then claims it: it takes its
+ * tokens off every other slot and places them on the slots of the set. If a card changed while it was reacting,
+ * it looks again instead. The reaction time is normally distributed around config.computerReactionMillis with a
+ * standard deviation of config.computerReactionJitterMillis (never negative).
+ */
+public class SolverComputer implements ComputerStrategy {
+
+    /**
+     * The game environment object.
+     */
+    protected final Env env;
+
+    /**
+     * The least time to wait before looking again at a table without a set, in milliseconds.
+     */
+    private static final long IDLE_MILLIS = 10;
+
+    protected final Random random;
+
+    /**
+     * The cards on the table at the last look (reused).
+     */
+    protected final int[] cards;
+
+    /**
+     * The slots the player has tokens on (reused).
+     */
+    private final int[] tokens = new int[3];
+
+    /**
+     * The legal sets on the table at the last look (reused).
+     */
+    private final List<int[]> sets = new ArrayList<>();
+
+    /**
+     * The slots chosen at the last look, or null if there was no set to claim.
+     */
+    private int[] target;
+
+    /**
+     * The table version at the last look.
+     */
+    private long epoch;
+
+    /**
+     * @param env    - the game environment objects.
+     * @param random - the player's random number generator.
+     */
+    public SolverComputer(Env env, Random random) {
+        this.env = env;
+        this.random = random;
+        cards = new int[env.config.tableSize];
+    }
+
+    @Override
+    public long look(Table table, int player) {
+        epoch = table.snapshot(cards, sets);
+        target = chooseSlots(sets);
+        long reaction = reactionMillis();
+        return target == null ? Math.max(IDLE_MILLIS, reaction) : reaction;
+    }
+
+    @Override
+    public int[] keyPresses(Table table, int player) {
+        if (target == null || table.version() != epoch) return new int[0];
+
+        int[] presses = new int[6];
+        int count = 0;
+        int placed = table.getTokens(player, tokens);
+        for (int i = 0; i < placed; ++i)
+            if (!contains(target, tokens[i])) presses[count++] = tokens[i];
+        for (int slot : target)
+            if (!table.hasToken(player, slot)) presses[count++] = slot;
+        int[] result = new int[count];
+        System.arraycopy(presses, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Chooses the slots to claim.
+     *
+     * @param sets - the legal sets on the table at the last look.
+     * @return     - the slots of one of them, chosen at random, or null if there is none.
+     */
+    protected int[] chooseSlots(List<int[]> sets) {
+        if (sets.isEmpty()) return null;
+        int[] set = sets.get(random.nextInt(sets.size()));
+        int[] slots = new int[set.length];
+        for (int i = 0; i < set.length; ++i)
+            slots[i] = slotOf(set[i]);
+        return slots;
+    }
+
+    /**
+     * @return - the time to react before claiming, in milliseconds.
+     */
+    protected long reactionMillis() {
+        double millis = env.config.computerReactionMillis + env.config.computerReactionJitterMillis * random.nextGaussian();
+        return Math.max(0, Math.round(millis));
+    }
+
+    /**
+     * @return - the slot of a card at the last look.
+     */
+    protected int slotOf(int card) {
+        for (int slot = 0; slot < cards.length; ++slot)
+            if (cards[slot] == card) return slot;
+        return Table.NONE;
+    }
+
+    private static boolean contains(int[] slots, int slot) {
+        for (int other : slots)
+            if (other == slot) return true;
+        return false;
+    }
+}
@@ -3,15 +3,20 @@ package bguspl.set.ex;
 import bguspl.set.Env;
 
 import java.util.*;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 /**
  * This class contains the data that is visible to the player.
  *
  * @inv slotToCard[x] == y iff cardToSlot[y] == x
+ *
+ * Locking: every slot has its own lock, guarding the card and the tokens on that slot. Whoever needs several slots
+ * locks them in ascending order (lockAll locks every slot). Readers that only look at the cards take a snapshot
+ * instead, which never blocks. The index of the sets on the table is guarded by the cards lock, like the cards.
  */
 public class Table {
 
@@ -19,65 +24,113 @@ public class Table {
      * The game environment object.
      */
     private final Env env;
-    public final Condition cards_on_Table;
 
     public int highest_score;
 
-    public Queue<ArrayList<Integer>> claimed_Set;
-    public Queue<Integer> claimed_Set_player_Id;
     /**
-     * General for Lock for the table
+     * The sets claimed by the players, waiting for the dealer.
+     */
+    public final ClaimRing claims;
+
+    /**
+     * One lock per slot, so that players touching different slots never contend.
+     */
+    private final ReentrantLock[] slotLocks;
+
+    /**
+     * The value of slotToCard / cardToSlot entries for an empty slot / a card that is not on the table.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The number of longs in the bitmask of the players having a token on a slot.
      */
-    public ReentrantLock local_Lock;
+    private final int playerWords;
 
     /**
-     * Mapping between a slot and the player placed token on it (null if none).
+     * Mapping between a slot and the players having a token on it: bit p of the slot's playerWords longs
+     * (starting at slot * playerWords) is set iff player p has a token on the slot. Guarded by the slot's lock.
      */
-    protected ArrayList<Integer>[] SlotToPlayer;
+    private final long[] slotToPlayers;
 
+    /**
+     * Mapping between a player and the slots the player placed tokens on: 3 fields of 16 bits holding slot + 1 (0 if empty).
+     * Updated by compare-and-set, since a player's tokens on different slots are guarded by different locks.
+     */
+    private final AtomicLongArray playerToSlots;
 
     /**
-     * Mapping between a player and the slot he placed token on it (null if none).
+     * Mapping between a slot and the card placed in it (NONE if none).
      */
-    protected ArrayList<Integer>[] playerToSlot;
+    protected final int[] slotToCard; // card per slot (if any)
 
+    /**
+     * Mapping between a card and the slot it is in (NONE if none).
+     */
+    protected final int[] cardToSlot; // slot per card (if any)
+
+    /**
+     * The legal sets among the cards currently on the table (card ids of each set sorted).
+     * Kept up to date by placeCard and removeCard. Guarded by cardsLock.
+     */
+    private final List<int[]> setsOnTable;
+
+    /**
+     * True iff setsOnTable must be recomputed before it is read (only when sets are not made of three cards).
+     * Guarded by cardsLock.
+     */
+    private boolean setsDirty;
+
+    /**
+     * Incremented every time a card is placed on or removed from the table.
+     */
+    private volatile long version;
 
     /**
-     * Mapping between a slot and the card placed in it (null if none).
+     * Guards the cards on the table (slotToCard, cardToSlot and the version) against readers that do not lock the
+     * slots: the dealer holds its write lock while changing a card, readers copy the cards optimistically.
      */
-    protected final Integer[] slotToCard; // card per slot (if any)
+    private final StampedLock cardsLock = new StampedLock();
 
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * The number of optimistic attempts a snapshot makes before waiting for the read lock.
      */
-    protected final Integer[] cardToSlot; // slot per card (if any)
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+
+    /**
+     * Prints the hints in the background.
+     */
+    private final HintEngine hintEngine;
+
+    /**
+     * Shows the table changes in the user interface, with the configured delay.
+     */
+    private final TableAnimator animator;
 
     /**
      * Constructor for testing.
      *
      * @param env        - the game environment objects.
-     * @param slotToCard - mapping between a slot and the card placed in it (null if none).
-     * @param cardToSlot - mapping between a card and the slot it is in (null if none).
+     * @param slotToCard - mapping between a slot and the card placed in it (NONE if none).
+     * @param cardToSlot - mapping between a card and the slot it is in (NONE if none).
      */
-    public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
+    public Table(Env env, int[] slotToCard, int[] cardToSlot) {
 
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
-        claimed_Set = new LinkedList<>();
-        claimed_Set_player_Id = new LinkedList<>();
-        local_Lock = new ReentrantLock(true);
-        playerToSlot = new ArrayList[env.config.players];
-        SlotToPlayer = new ArrayList[env.config.tableSize];
-        cards_on_Table = local_Lock.newCondition();
-
-
-        for (int i = 0; i < playerToSlot.length; i++) {
-            playerToSlot[i] = new ArrayList<>();
-        }
-
-        for (int i = 0; i < SlotToPlayer.length; i++) {
-            SlotToPlayer[i] = new ArrayList<>();
+        claims = new ClaimRing(Math.max(16, 2 * env.config.players));
+        slotLocks = new ReentrantLock[env.config.tableSize];
+        playerWords = (env.config.players + Long.SIZE - 1) / Long.SIZE;
+        slotToPlayers = new long[env.config.tableSize * playerWords];
+        playerToSlots = new AtomicLongArray(env.config.players);
+        setsOnTable = new ArrayList<>();
+        setsDirty = true;
+        hintEngine = new HintEngine(env, this);
+        animator = new TableAnimator(env);
+
+        for (int i = 0; i < slotLocks.length; i++) {
+            slotLocks[i] = new ReentrantLock();
         }
     }
 
@@ -88,20 +141,155 @@ public class Table {
      * @param env - the game environment objects.
      */
     public Table(Env env) {
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, emptyMapping(env.config.tableSize), emptyMapping(env.config.deckSize));
+    }
+
+    private static int[] emptyMapping(int size) {
+        int[] mapping = new int[size];
+        Arrays.fill(mapping, NONE);
+        return mapping;
     }
 
     /**
-     * This method prints all possible legal sets of cards that are currently on the table.
+     * This method prints all possible legal sets of cards that are currently on the table (if hints are enabled).
+     * The hints are printed asynchronously, so the caller should not hold any slot lock.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
-            StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-            List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
-            int[][] features = env.util.cardsToFeatures(set);
-            System.out.println(sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
-        });
+        if (env.config.hints)
+            hintEngine.request();
+    }
+
+    /**
+     * @return - the version of the table, which changes every time a card is placed or removed.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Copies the cards on the table without locking any slot. The copy is taken optimistically and only retried
+     * when a card changed meanwhile, so readers never hold up the dealer.
+     *
+     * @param cards - receives the card in every slot (NONE if empty), at least tableSize entries.
+     * @return      - the version of the table the copy was taken at.
+     */
+    public long snapshot(int[] cards) {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; ++attempt) {
+            long stamp = cardsLock.tryOptimisticRead();
+            if (stamp == 0) continue;
+            long epoch = version;
+            System.arraycopy(slotToCard, 0, cards, 0, slotToCard.length);
+            if (cardsLock.validate(stamp)) return epoch;
+        }
+
+        long stamp = cardsLock.readLock();
+        try {
+            System.arraycopy(slotToCard, 0, cards, 0, slotToCard.length);
+            return version;
+        } finally {
+            cardsLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Copies the cards on the table and the legal sets among them, as a single consistent view.
+     *
+     * @param cards - receives the card in every slot (NONE if empty), at least tableSize entries.
+     * @param sets  - receives the legal sets among the cards (card ids of each set sorted), replacing its content.
+     * @return      - the version of the table the copy was taken at.
+     */
+    public long snapshot(int[] cards, List<int[]> sets) {
+        long stamp = lockIndexed();
+        try {
+            System.arraycopy(slotToCard, 0, cards, 0, slotToCard.length);
+            sets.clear();
+            sets.addAll(setsOnTable);
+            return version;
+        } finally {
+            cardsLock.unlock(stamp);
+        }
+    }
+
+    /**
+     * @return - true iff there is at least one legal set among the cards currently on the table.
+     */
+    public boolean hasSet() {
+        long stamp = lockIndexed();
+        try {
+            return !setsOnTable.isEmpty();
+        } finally {
+            cardsLock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Locks the cards for reading the set index, rescanning the table first (under the write lock) if the index
+     * could not be maintained incrementally.
+     *
+     * @return - the stamp to release with cardsLock.unlock.
+     */
+    private long lockIndexed() {
+        long stamp = cardsLock.readLock();
+        if (!setsDirty) return stamp;
+        long writeStamp = cardsLock.tryConvertToWriteLock(stamp);
+        if (writeStamp == 0) {
+            cardsLock.unlockRead(stamp);
+            writeStamp = cardsLock.writeLock();
+        }
+        if (setsDirty) {
+            List<Integer> cards = Arrays.stream(slotToCard).filter(card -> card != NONE).boxed().collect(Collectors.toList());
+            setsOnTable.clear();
+            env.util.streamSets(cards).forEach(setsOnTable::add);
+            setsDirty = false;
+        }
+        return writeStamp;
+    }
+
+    /**
+     * Adds the sets formed by a newly placed card and two cards already on the table to the set index.
+     * Each such set {card, other, third} is found twice (from other and from third), so only other < third counts.
+     */
+    private void indexCard(int card) {
+        if (setsDirty || env.config.featureSize != 3) {
+            setsDirty = true;
+            return;
+        }
+        for (int other : slotToCard) {
+            if (other == NONE || other == card) continue;
+            int third = env.util.completeSet(card, other);
+            if (third > other && cardToSlot[third] != NONE) {
+                int[] set = {card, other, third};
+                Arrays.sort(set);
+                setsOnTable.add(set);
+            }
+        }
+    }
+
+    /**
+     * Removes every set containing a card leaving the table from the set index.
+     */
+    private void unindexCard(int card) {
+        if (setsDirty || env.config.featureSize != 3) {
+            setsDirty = true;
+            return;
+        }
+        setsOnTable.removeIf(set -> set[0] == card || set[1] == card || set[2] == card);
+    }
+
+    /**
+     * @param slot - the slot.
+     * @return     - the card in the slot, or NONE if the slot is empty.
+     */
+    public int cardAt(int slot) {
+        return slotToCard[slot];
+    }
+
+    /**
+     * @param card - the card.
+     * @return     - the slot the card is in, or NONE if it is not on the table.
+     */
+    public int slotOf(int card) {
+        return cardToSlot[card];
     }
 
     /**
@@ -111,8 +299,8 @@ public class Table {
      */
     public int countCards() {
         int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
+        for (int card : slotToCard)
+            if (card != NONE)
                 ++cards;
         return cards;
     }
@@ -125,18 +313,22 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
-        //Take current slot key
+        long stamp = cardsLock.writeLock();
         try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {
+            int replaced = slotToCard[slot];
+            if (replaced != NONE) {
+                unindexCard(replaced);
+                cardToSlot[replaced] = NONE;
+            }
+            cardToSlot[card] = slot;
+            slotToCard[slot] = card;
+            indexCard(card);
+            ++version;
+        } finally {
+            cardsLock.unlockWrite(stamp);
         }
-
-        cardToSlot[card] = slot;
-        slotToCard[slot] = card;
         //Show card on table
-        env.ui.placeCard(card, slot);
-
-
+        animator.card(() -> env.ui.placeCard(card, slot));
     }
 
     /**
@@ -145,44 +337,198 @@ public class Table {
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int slot) {
-        //Take current slot key
-        System.out.println("the card" + slot + "Is removed");
+        long stamp = cardsLock.writeLock();
+        try {
+            int card = slotToCard[slot];
+            unindexCard(card);
+            cardToSlot[card] = NONE;
+            slotToCard[slot] = NONE;
+            ++version;
+        } finally {
+            cardsLock.unlockWrite(stamp);
+        }
+        animator.card(() -> env.ui.removeCard(slot));
+    }
 
+    /**
+     * Removes several cards from the table at once, as a single change of the table version.
+     *
+     * @param slots - the slots from which to remove the cards (each holding a card).
+     */
+    public void removeCards(int[] slots) {
+        long stamp = cardsLock.writeLock();
         try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {
+            for (int slot : slots) {
+                int card = slotToCard[slot];
+                unindexCard(card);
+                cardToSlot[card] = NONE;
+                slotToCard[slot] = NONE;
+            }
+            ++version;
+        } finally {
+            cardsLock.unlockWrite(stamp);
         }
+        for (int slot : slots)
+            animator.card(() -> env.ui.removeCard(slot));
+    }
+
+    /**
+     * Locks the given slots, in ascending order.
+     *
+     * @param slots - the slots to lock, sorted in ascending order.
+     */
+    public void lockSlots(int[] slots) {
+        for (int slot : slots)
+            slotLocks[slot].lock();
+    }
+
+    /**
+     * Unlocks the given slots.
+     *
+     * @param slots - the slots to unlock.
+     */
+    public void unlockSlots(int[] slots) {
+        for (int i = slots.length - 1; i >= 0; --i)
+            slotLocks[slots[i]].unlock();
+    }
+
+    /**
+     * Locks every slot of the table (e.g. to change or read all of it atomically).
+     */
+    public void lockAll() {
+        for (ReentrantLock lock : slotLocks)
+            lock.lock();
+    }
+
+    /**
+     * Unlocks every slot of the table.
+     */
+    public void unlockAll() {
+        for (int i = slotLocks.length - 1; i >= 0; --i)
+            slotLocks[i].unlock();
+    }
+
+    /**
+     * Removes the player's token from a slot if there is one, otherwise places one if the player has less than 3.
+     *
+     * @param player - the player pressing the slot.
+     * @param slot   - the slot pressed.
+     */
+    public void toggleToken(int player, int slot) {
+        slotLocks[slot].lock();
+        try {
+            if (!removeToken(player, slot) && countTokens(player) < 3)
+                placeToken(player, slot);
+        } finally {
+            slotLocks[slot].unlock();
+        }
+    }
+
+    /**
+     * @param player - the player.
+     * @return       - the number of tokens the player has on the table.
+     */
+    public int countTokens(int player) {
+        return count(playerToSlots.get(player));
+    }
 
-        int card = slotToCard[slot];
-        cardToSlot[card] = null;
-        slotToCard[slot] = null;
-        env.ui.removeCard(slot);
+    /**
+     * @param tokens - packed token slots of a player.
+     * @return       - the number of occupied fields.
+     */
+    private static int count(long tokens) {
+        int count = 0;
+        for (int i = 0; i < 3; ++i, tokens >>>= 16)
+            if ((tokens & 0xFFFF) != 0) ++count;
+        return count;
+    }
 
+    /**
+     * Copies the slots the player has tokens on (without allocating).
+     *
+     * @param player - the player.
+     * @param slots  - receives the slots (at least 3 entries).
+     * @return       - the number of slots copied.
+     */
+    public int getTokens(int player, int[] slots) {
+        long tokens = playerToSlots.get(player);
+        int count = 0;
+        for (int i = 0; i < 3; ++i, tokens >>>= 16)
+            if ((tokens & 0xFFFF) != 0) slots[count++] = (int) (tokens & 0xFFFF) - 1;
+        return count;
+    }
 
+    /**
+     * Adds a slot to the player's packed token slots.
+     *
+     * @return - the packed token slots after the change, or -1 if the player already has 3 tokens.
+     */
+    private long addTokenSlot(int player, int slot) {
+        while (true) {
+            long tokens = playerToSlots.get(player);
+            int field = 0;
+            while (field < 3 && ((tokens >>> (16 * field)) & 0xFFFF) != 0) ++field;
+            if (field == 3) return -1;
+            long updated = tokens | (long) (slot + 1) << (16 * field);
+            if (playerToSlots.compareAndSet(player, tokens, updated)) return updated;
+        }
     }
 
     /**
-     * Places a player token on a grid slot.
+     * Removes a slot from the player's packed token slots.
+     */
+    private void removeTokenSlot(int player, int slot) {
+        while (true) {
+            long tokens = playerToSlots.get(player);
+            long updated = tokens;
+            for (int field = 0; field < 3; ++field)
+                if (((tokens >>> (16 * field)) & 0xFFFF) == slot + 1)
+                    updated &= ~(0xFFFFL << (16 * field));
+            if (updated == tokens || playerToSlots.compareAndSet(player, tokens, updated)) return;
+        }
+    }
+
+    /**
+     * Places a player token on a grid slot holding a card. The third token of a player makes a claim; if the claim
+     * ring is full, the claim is dropped and the player's tokens are taken back, so that the player can claim again.
      *
      * @param player - the player the token belongs to.
      * @param slot   - the slot on which to place the token.
      */
     public void placeToken(int player, int slot) {
+        int[] dropped = null;
+        slotLocks[slot].lock();
         try {
-            //Take local key
-            local_Lock.lock();
-
-            playerToSlot[player].add(slot);
-            SlotToPlayer[slot].add(player);
-            env.ui.placeToken(player, slot);
-
-            //Update list of claimed sets
-            if (playerToSlot[player].size() == 3) {
-                claimed_Set.add(playerToSlot[player]);
-                claimed_Set_player_Id.add(player);
+            if (hasToken(player, slot) || slotToCard[slot] == NONE) return;
+            long tokens = addTokenSlot(player, slot);
+            if (tokens == -1) return;
+            slotToPlayers[slot * playerWords + player / Long.SIZE] |= 1L << player;
+            animator.token(() -> env.ui.placeToken(player, slot));
+
+            //Check the set against a snapshot of the table and submit the verdict (the dealer only confirms the cards)
+            if (count(tokens) == 3) {
+                int[] onTable = new int[slotToCard.length];
+                long epoch = snapshot(onTable);
+                int[] claimed = new int[3];
+                int[] cards = new int[3];
+                for (int i = 0; i < 3; ++i) {
+                    claimed[i] = (int) (tokens >>> (16 * i) & 0xFFFF) - 1;
+                    cards[i] = onTable[claimed[i]];
+                    if (cards[i] == NONE) return;
+                }
+                boolean legal = env.util.testSet(cards[0], cards[1], cards[2]);
+                if (!claims.offer(new Claim(player, claimed, cards, epoch, legal, System.nanoTime())))
+                    dropped = claimed;
             }
         } finally {
-            local_Lock.unlock();
+            slotLocks[slot].unlock();
+        }
+
+        // the other slots are locked one at a time, only once this one is unlocked
+        if (dropped != null) {
+            for (int claimedSlot : dropped)
+                removeToken(player, claimedSlot);
+            env.logger.log(Level.WARNING, "claim of player " + player + " dropped: too many pending claims.");
         }
     }
 
@@ -194,36 +540,66 @@ public class Table {
      * @return - true iff a token was successfully removed.
      */
     public boolean removeToken(int player, int slot) {
-        boolean removed;
-        removed = playerToSlot[player].remove((Integer) slot);
-        SlotToPlayer[slot].remove((Integer) player);
-        if (removed)
-            env.ui.removeToken(player, slot);
-
-
-        return removed;
-
+        slotLocks[slot].lock();
+        try {
+            if (!hasToken(player, slot)) return false;
+            slotToPlayers[slot * playerWords + player / Long.SIZE] &= ~(1L << player);
+            removeTokenSlot(player, slot);
+            animator.token(() -> env.ui.removeToken(player, slot));
+            return true;
+        } finally {
+            slotLocks[slot].unlock();
+        }
     }
 
-
-    public ArrayList<Integer>[] getSlotToPlayer() {
-        ArrayList<Integer>[] copy = new ArrayList[SlotToPlayer.length];
-        for (int i = 0; i < SlotToPlayer.length; i++) {
-            copy[i] = new ArrayList<>(SlotToPlayer[i]);
+    /**
+     * Removes the tokens of all players from a grid slot.
+     *
+     * @param slot - the slot from which to remove the tokens.
+     */
+    public void removeTokens(int slot) {
+        slotLocks[slot].lock();
+        try {
+            for (int player = nextPlayerOnSlot(slot, 0); player != NONE; player = nextPlayerOnSlot(slot, player + 1))
+                removeTokenSlot(player, slot);
+            Arrays.fill(slotToPlayers, slot * playerWords, (slot + 1) * playerWords, 0L);
+            animator.token(() -> env.ui.removeTokens(slot));
+        } finally {
+            slotLocks[slot].unlock();
         }
-
-        return copy;
     }
 
-    public ArrayList<Integer>[] getPlayerToSlot() {
-        ArrayList<Integer>[] copy = new ArrayList[playerToSlot.length];
-        for (int i = 0; i < playerToSlot.length; i++) {
-            copy[i] = new ArrayList<>(playerToSlot[i]);
+    /**
+     * @param player - the player.
+     * @param slot   - the slot.
+     * @return       - true iff the player has a token on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        slotLocks[slot].lock();
+        try {
+            return (slotToPlayers[slot * playerWords + player / Long.SIZE] & 1L << player) != 0;
+        } finally {
+            slotLocks[slot].unlock();
         }
+    }
 
-        return copy;
+    /**
+     * Finds the players having a token on a slot, without allocating: iterate with
+     * {@code for (p = nextPlayerOnSlot(slot, 0); p != NONE; p = nextPlayerOnSlot(slot, p + 1))}.
+     * The caller should hold the slot's lock for a consistent view.
+     *
+     * @param slot - the slot.
+     * @param from - the first player id to consider.
+     * @return     - the lowest player id >= from having a token on the slot, or NONE if there is none.
+     */
+    public int nextPlayerOnSlot(int slot, int from) {
+        int base = slot * playerWords;
+        for (int word = from / Long.SIZE; word < playerWords; ++word) {
+            long bits = slotToPlayers[base + word];
+            if (word == from / Long.SIZE) bits &= -1L << from;
+            if (bits != 0) return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+        }
+        return NONE;
     }
 
 }
-
-
@@ -0,0 +1,62 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class replays the table changes to the user interface on a background thread, waiting the configured table
+ * delay before every card change. The table itself changes instantly, so the game never waits for the animation.
+ * Token changes go through the same thread without waiting, so the interface sees every change in table order.
+ */
+public class TableAnimator {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The single thread on which the changes are shown (null when there is no delay to wait).
+     */
+    private final ExecutorService sink;
+
+    public TableAnimator(Env env) {
+        this.env = env;
+        sink = env.config.tableDelayMillis <= 0 ? null : Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "animation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Shows a card change, after the table delay.
+     *
+     * @param change - the user interface call showing the change.
+     */
+    public void card(Runnable change) {
+        if (sink == null) {
+            change.run();
+            return;
+        }
+        sink.execute(() -> {
+            try {
+                Thread.sleep(env.config.tableDelayMillis);
+            } catch (InterruptedException ignored) {
+            }
+            change.run();
+        });
+    }
+
+    /**
+     * Shows a token change, right after the changes shown before it.
+     *
+     * @param change - the user interface call showing the change.
+     */
+    public void token(Runnable change) {
+        if (sink == null) change.run();
+        else sink.execute(change);
+    }
+}
@@ -0,0 +1,98 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs on virtual threads, and is skipped on JVMs without them (before Java 21).
+ */
+class GameThreadFactoryTest {
+
+    Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        logger = Logger.getLogger("GameThreadFactoryTest");
+        logger.setUseParentHandlers(false);
+    }
+
+    private static boolean isVirtual(Thread thread) throws ReflectiveOperationException {
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+
+    @Test
+    void newThread_CreatesVirtualThreads() throws Exception {
+
+        GameThreadFactory threads = new GameThreadFactory(logger, true);
+        assumeTrue(threads.isVirtual(), "virtual threads are not supported by this JVM");
+
+        AtomicBoolean ran = new AtomicBoolean();
+        Thread thread = threads.newThread(() -> ran.set(true), "virtual");
+        assertTrue(isVirtual(thread));
+        assertEquals("virtual", thread.getName());
+        thread.start();
+        thread.join();
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void newThread_CreatesPlatformThreadsUnlessAskedForVirtualOnes() throws Exception {
+
+        GameThreadFactory threads = new GameThreadFactory(logger, false);
+        assertFalse(threads.isVirtual());
+        assumeTrue(new GameThreadFactory(logger, true).isVirtual(), "virtual threads are not supported by this JVM");
+        assertFalse(isVirtual(threads.newThread(() -> {}, "platform")));
+    }
+
+    @Test
+    void computerPlayersPlayAGameToItsEndOnVirtualThreads() throws InterruptedException {
+
+        assumeTrue(new GameThreadFactory(logger, true).isVirtual(), "virtual threads are not supported by this JVM");
+
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "4");
+        properties.put("ComputerStrategy", "Solver");
+        properties.put("ComputerReactionSeconds", "0");
+        properties.put("ComputerReactionJitterSeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("TurnTimeoutSeconds", "1");
+        properties.put("Hints", "False");
+        properties.put("VirtualThreads", "True");
+        Config config = new Config(logger, properties);
+        RecordingUserInterface ui = new RecordingUserInterface();
+        Env env = new Env(logger, config, ui, new UtilImpl(config));
+        assertTrue(env.threads.isVirtual());
+
+        Player[] players = new Player[config.players];
+        Table table = new Table(env);
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+        Thread dealerThread = new Thread(dealer, "dealer");
+        dealerThread.start();
+        dealerThread.join(30_000);
+        if (dealerThread.isAlive()) {
+            dealer.terminate();
+            dealerThread.join();
+        }
+
+        assertNotNull(ui.winners(), "the game did not end");
+        assertTrue(ui.scores() > 0);
+    }
+}
@@ -0,0 +1,228 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    private static UtilImpl util(int featureSize, int featureCount, boolean parallel) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("ParallelFindSets", Boolean.toString(parallel));
+        Logger logger = Logger.getLogger("UtilImplTest");
+        logger.setUseParentHandlers(false);
+        return new UtilImpl(new Config(logger, properties));
+    }
+
+    private static List<Integer> deck(int featureSize, int featureCount) {
+        int deckSize = (int) Math.pow(featureSize, featureCount);
+        return IntStream.range(0, deckSize).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * The reference definition of a set: in every feature the cards are either all the same or all different.
+     */
+    private static boolean isSet(int[] cards, int featureSize, int featureCount) {
+        for (int i = 0, weight = 1; i < featureCount; ++i, weight *= featureSize) {
+            boolean[] seen = new boolean[featureSize];
+            int values = 0;
+            for (int card : cards) {
+                int value = card / weight % featureSize;
+                if (!seen[value]) {
+                    seen[value] = true;
+                    ++values;
+                }
+            }
+            if (values != 1 && values != cards.length) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Brute force: every combination of featureSize cards that is a set, sorted.
+     */
+    private static List<int[]> allSets(List<Integer> deck, int featureSize, int featureCount) {
+        List<int[]> sets = new ArrayList<>();
+        int[] combination = new int[featureSize];
+        collect(deck, featureSize, featureCount, combination, 0, 0, sets);
+        return sorted(sets);
+    }
+
+    private static void collect(List<Integer> deck, int featureSize, int featureCount, int[] combination,
+                                int depth, int from, List<int[]> sets) {
+        if (depth == combination.length) {
+            if (isSet(combination, featureSize, featureCount)) {
+                int[] set = combination.clone();
+                Arrays.sort(set);
+                sets.add(set);
+            }
+            return;
+        }
+        for (int i = from; i < deck.size(); ++i) {
+            combination[depth] = deck.get(i);
+            collect(deck, featureSize, featureCount, combination, depth + 1, i + 1, sets);
+        }
+    }
+
+    private static List<int[]> sorted(List<int[]> sets) {
+        List<int[]> copy = new ArrayList<>();
+        for (int[] set : sets) {
+            int[] sortedSet = set.clone();
+            Arrays.sort(sortedSet);
+            copy.add(sortedSet);
+        }
+        copy.sort(Comparator.comparing(Arrays::toString));
+        return copy;
+    }
+
+    private static void assertSameSets(List<int[]> expected, List<int[]> actual) {
+        assertEquals(expected.stream().map(Arrays::toString).collect(Collectors.toList()),
+                sorted(actual).stream().map(Arrays::toString).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findSets_FindsEverySetByPairs() {
+
+        for (int featureCount = 1; featureCount <= 4; ++featureCount) {
+            UtilImpl util = util(3, featureCount, false);
+            List<Integer> deck = deck(3, featureCount);
+            assertSameSets(allSets(deck, 3, featureCount), util.findSets(deck, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void findSets_FindsSetsOnAPartialTable() {
+
+        UtilImpl util = util(3, 4, false);
+        List<Integer> table = Arrays.asList(5, 17, 33, 40, 41, 58, 62, 63, 70, 75, 79, 80);
+        assertSameSets(allSets(table, 3, 4), util.findSets(table, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void findSets_StopsAtCount() {
+
+        UtilImpl util = util(3, 4, false);
+        List<int[]> sets = util.findSets(deck(3, 4), 1);
+
+        assertEquals(1, sets.size());
+        assertTrue(isSet(sets.get(0), 3, 4));
+    }
+
+    @Test
+    void completeSet_MatchesTheReference() {
+
+        UtilImpl util = util(3, 4, false);
+        for (int a = 0; a < 81; ++a)
+            for (int b = 0; b < 81; ++b) {
+                if (a == b) continue;
+                int third = util.completeSet(a, b);
+                assertTrue(third != a && third != b);
+                assertTrue(isSet(new int[]{a, b, third}, 3, 4));
+            }
+    }
+
+    @Test
+    void testSet_BothOverloadsMatchTheReference() {
+
+        for (int featureCount = 1; featureCount <= 4; ++featureCount) {
+            UtilImpl util = util(3, featureCount, false);
+            int deckSize = (int) Math.pow(3, featureCount);
+            for (int a = 0; a < deckSize; ++a)
+                for (int b = a + 1; b < deckSize; ++b)
+                    for (int c = b + 1; c < deckSize; ++c) {
+                        boolean expected = isSet(new int[]{a, b, c}, 3, featureCount);
+                        assertEquals(expected, util.testSet(new int[]{a, b, c}));
+                        assertEquals(expected, util.testSet(c, a, b));
+                    }
+        }
+    }
+
+    @Test
+    void findSets_InParallelFindsEverySet() {
+
+        UtilImpl util = util(3, 5, true);
+        List<Integer> deck = deck(3, 5);
+        assertSameSets(allSets(deck, 3, 5), util.findSets(deck, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void findSets_InParallelStopsAtCount() {
+
+        for (int count : new int[]{1, 10}) {
+            List<int[]> sets = util(3, 5, true).findSets(deck(3, 5), count);
+            assertEquals(count, sets.size());
+            assertEquals(count, sets.stream().map(Arrays::toString).distinct().count());
+            for (int[] set : sets)
+                assertTrue(isSet(set, 3, 5));
+        }
+
+        List<int[]> sets = util(4, 4, true).findSets(deck(4, 4), 5);
+        assertEquals(5, sets.size());
+        for (int[] set : sets)
+            assertTrue(isSet(set, 4, 4));
+    }
+
+    @Test
+    void streamSets_EnumeratesEverySet() {
+
+        UtilImpl util = util(3, 4, false);
+        List<Integer> deck = deck(3, 4);
+        List<int[]> expected = allSets(deck, 3, 4);
+
+        assertSameSets(expected, util.streamSets(deck).collect(Collectors.toList()));
+        assertSameSets(expected, util.streamSets(deck).parallel().collect(Collectors.toList()));
+    }
+
+    @Test
+    void streamSets_StopsWhenLimited() {
+
+        List<int[]> sets = util(3, 7, false).streamSets(deck(3, 7)).limit(3).collect(Collectors.toList());
+
+        assertEquals(3, sets.size());
+        for (int[] set : sets)
+            assertTrue(isSet(set, 3, 7));
+    }
+
+    @Test
+    void findSets_FindsLargerSetsByCombinations() {
+
+        int[][] configurations = {{4, 2}, {4, 3}, {5, 2}};
+        for (int[] configuration : configurations) {
+            int featureSize = configuration[0], featureCount = configuration[1];
+            UtilImpl util = util(featureSize, featureCount, false);
+            List<Integer> deck = deck(featureSize, featureCount);
+            List<int[]> expected = allSets(deck, featureSize, featureCount);
+
+            assertSameSets(expected, util.findSets(deck, Integer.MAX_VALUE));
+            assertSameSets(expected, util.streamSets(deck).collect(Collectors.toList()));
+            assertEquals(1, util.findSets(deck, 1).size());
+            assertEquals(-1, util.completeSet(0, 1));
+        }
+    }
+
+    @Test
+    void testSet_MatchesTheReferenceForLargerSets() {
+
+        UtilImpl util = util(4, 3, false);
+        Random random = new Random(5);
+        for (int i = 0; i < 10_000; ++i) {
+            int[] cards = random.ints(0, 64).distinct().limit(4).toArray();
+            assertEquals(isSet(cards, 4, 3), util.testSet(cards));
+        }
+        for (int[] set : allSets(deck(4, 3), 4, 3))
+            assertTrue(util.testSet(set));
+    }
+}
@@ -0,0 +1,108 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClaimRingTest {
+
+    private static Claim claim(int player, long nanoTime) {
+        return new Claim(player, new int[]{0, 1, 2}, new int[]{0, 1, 2}, 0, true, nanoTime);
+    }
+
+    /**
+     * @return - the number of claims offered before the ring was full.
+     */
+    private static int fill(ClaimRing ring) {
+        int offered = 0;
+        while (ring.offer(claim(0, offered)))
+            ++offered;
+        return offered;
+    }
+
+    @Test
+    void offer_RoundsTheCapacityUpToAPowerOfTwo() {
+
+        assertEquals(2, fill(new ClaimRing(1)));
+        assertEquals(2, fill(new ClaimRing(2)));
+        assertEquals(4, fill(new ClaimRing(3)));
+        assertEquals(4, fill(new ClaimRing(4)));
+        assertEquals(8, fill(new ClaimRing(5)));
+        assertEquals(16, fill(new ClaimRing(16)));
+    }
+
+    @Test
+    void drain_PassesTheClaimsInTheOrderTheyWereAdded() {
+
+        ClaimRing ring = new ClaimRing(4);
+        assertTrue(ring.isEmpty());
+        List<Claim> offered = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            Claim claim = claim(i, i);
+            offered.add(claim);
+            assertTrue(ring.offer(claim));
+        }
+        assertFalse(ring.isEmpty());
+
+        List<Claim> drained = new ArrayList<>();
+        assertEquals(2, ring.drain(drained::add, 2));
+        assertEquals(1, ring.drain(drained::add, 10));
+        assertEquals(0, ring.drain(drained::add, 10));
+        assertTrue(ring.isEmpty());
+        assertEquals(offered.size(), drained.size());
+        for (int i = 0; i < offered.size(); ++i)
+            assertSame(offered.get(i), drained.get(i));
+    }
+
+    @Test
+    void offer_ReusesTheCellsOfDrainedClaims() {
+
+        ClaimRing ring = new ClaimRing(4);
+        List<Claim> drained = new ArrayList<>();
+        for (int round = 0; round < 10; ++round) {
+            assertEquals(4, fill(ring));
+            assertEquals(4, ring.drain(drained::add, Integer.MAX_VALUE));
+        }
+        assertEquals(40, drained.size());
+    }
+
+    @Test
+    void drain_KeepsTheOrderOfEveryProducer() throws InterruptedException {
+
+        int producers = 4;
+        int claimsPerProducer = 10_000;
+        ClaimRing ring = new ClaimRing(8);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; ++p) {
+            int player = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < claimsPerProducer; ++i)
+                    while (!ring.offer(claim(player, i)))
+                        Thread.yield();
+            });
+            threads[p].start();
+        }
+
+        long[] next = new long[producers];
+        int drained = 0;
+        while (drained < producers * claimsPerProducer) {
+            drained += ring.drain(claim -> {
+                assertEquals(next[claim.player], claim.nanoTime);
+                ++next[claim.player];
+            }, Integer.MAX_VALUE);
+            Thread.yield();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertTrue(ring.isEmpty());
+        for (long count : next)
+            assertEquals(claimsPerProducer, count);
+    }
+}
@@ -0,0 +1,257 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.GameThreadFactory;
+import bguspl.set.RecordingUserInterface;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DealerTest {
+
+    Dealer dealer;
+    Table table;
+    Player[] players;
+
+    @BeforeEach
+    void setUp() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("Rows", "3");
+        properties.put("Columns", "4");
+        properties.put("HumanPlayers", "2");
+        properties.put("ComputerPlayers", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PointFreezeSeconds", "1");
+        properties.put("PenaltyFreezeSeconds", "1");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+
+        table = new Table(env);
+        players = new Player[config.players];
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, true);
+
+        // {0, 1, 2} and {0, 3, 6} are sets, sharing card 0
+        int[] cards = {0, 1, 2, 3, 6, 10};
+        for (int slot = 0; slot < cards.length; ++slot)
+            table.placeCard(cards[slot], slot);
+    }
+
+    /**
+     * Places the player's tokens on the slots and makes the claim the player thread would have made.
+     */
+    private Claim claim(int player, int[] slots, boolean legal, long nanoTime) {
+        for (int slot : slots)
+            table.placeToken(player, slot);
+        int[] cards = Arrays.stream(slots).map(table::cardAt).toArray();
+        return new Claim(player, slots, cards, table.version(), legal, nanoTime);
+    }
+
+    private void settle(Claim... claims) {
+        dealer.set_Checker(new ArrayList<>(Arrays.asList(claims)));
+    }
+
+    @Test
+    void set_Checker_AwardsALegalClaim() {
+
+        settle(claim(0, new int[]{0, 1, 2}, true, 1));
+
+        assertEquals(1, players[0].getScore());
+        assertEquals(Table.NONE, table.cardAt(0));
+        assertEquals(Table.NONE, table.cardAt(1));
+        assertEquals(Table.NONE, table.cardAt(2));
+        assertEquals(0, table.countTokens(0));
+    }
+
+    @Test
+    void set_Checker_PenalizesAnIllegalClaim() {
+
+        settle(claim(0, new int[]{1, 2, 5}, false, 1));
+
+        assertEquals(0, players[0].getScore());
+        assertTrue(players[0].isFrozen());
+        assertEquals(10, table.cardAt(5));
+    }
+
+    @Test
+    void set_Checker_DropsAClaimWhoseCardWasReplaced() {
+
+        Claim claim = claim(0, new int[]{0, 1, 2}, true, 1);
+        table.removeCard(1);
+        table.placeCard(4, 1);
+        settle(claim);
+
+        assertEquals(0, players[0].getScore());
+        assertFalse(players[0].isFrozen());
+        assertEquals(4, table.cardAt(1));
+    }
+
+    @Test
+    void set_Checker_AcceptsAClaimWhenOnlyOtherCardsChanged() {
+
+        Claim claim = claim(0, new int[]{0, 1, 2}, true, 1);
+        table.removeCard(5);
+        table.placeCard(11, 5);
+        settle(claim);
+
+        assertEquals(1, players[0].getScore());
+        assertEquals(Table.NONE, table.cardAt(0));
+    }
+
+    @Test
+    void set_Checker_DropsAClaimWhoseTokenWasRemoved() {
+
+        Claim claim = claim(0, new int[]{0, 1, 2}, true, 1);
+        table.removeToken(0, 2);
+        settle(claim);
+
+        assertEquals(0, players[0].getScore());
+        assertFalse(players[0].isFrozen());
+        assertEquals(2, table.cardAt(2));
+    }
+
+    @Test
+    void set_Checker_SettlesABatchInTheOrderTheClaimsWereMade() {
+
+        // both claim card 0; player 1 claimed first, although its claim comes last in the batch
+        Claim later = claim(0, new int[]{0, 1, 2}, true, 20);
+        Claim earlier = claim(1, new int[]{0, 3, 4}, true, 10);
+        settle(later, earlier);
+
+        assertEquals(1, players[1].getScore());
+        assertEquals(0, players[0].getScore());
+        assertFalse(players[0].isFrozen());
+        assertEquals(Table.NONE, table.cardAt(3));
+        assertEquals(Table.NONE, table.cardAt(4));
+        assertEquals(1, table.cardAt(1));
+        assertEquals(2, table.cardAt(2));
+    }
+
+    @Test
+    void set_Checker_SettlesDisjointClaimsOfABatchTogether() {
+
+        table.placeCard(20, 6);
+        table.placeCard(23, 7);
+        table.placeCard(26, 8);
+        Claim first = claim(0, new int[]{0, 1, 2}, true, 10);
+        Claim second = claim(1, new int[]{6, 7, 8}, true, 20);
+        long version = table.version();
+        settle(second, first);
+
+        assertEquals(1, players[0].getScore());
+        assertEquals(1, players[1].getScore());
+        for (int slot : new int[]{0, 1, 2, 6, 7, 8})
+            assertEquals(Table.NONE, table.cardAt(slot));
+        assertEquals(version + 1, table.version());
+    }
+
+    @Test
+    void set_Checker_StillPenalizesAnIllegalClaimAfterALegalOne() {
+
+        Claim legal = claim(0, new int[]{0, 1, 2}, true, 10);
+        Claim illegal = claim(1, new int[]{3, 4, 5}, false, 20);
+        settle(illegal, legal);
+
+        assertEquals(1, players[0].getScore());
+        assertTrue(players[1].isFrozen());
+        assertEquals(3, table.cardAt(3));
+    }
+
+    @Test
+    void run_ReshufflesATableWithoutASetWhenThereIsNoCountdown() throws InterruptedException {
+
+        for (String timeout : new String[]{"0", "-1"}) {
+            // two slots never hold a set, while the deck always has one
+            Properties properties = new Properties();
+            properties.put("Rows", "1");
+            properties.put("Columns", "2");
+            properties.put("HumanPlayers", "1");
+            properties.put("ComputerPlayers", "0");
+            properties.put("TableDelaySeconds", "0");
+            properties.put("TurnTimeoutSeconds", timeout);
+            TableTest.MockLogger logger = new TableTest.MockLogger();
+            Config config = new Config(logger, properties);
+            CountDownLatch removed = new CountDownLatch(2);
+            Env env = new Env(logger, config, new TableTest.MockUserInterface() {
+                @Override
+                public void removeCard(int slot) {
+                    removed.countDown();
+                }
+            }, new UtilImpl(config));
+            Table table = new Table(env);
+            Player[] players = new Player[1];
+            Dealer dealer = new Dealer(env, table, players);
+            players[0] = new Player(env, dealer, table, 0, true);
+
+            Thread thread = new Thread(dealer);
+            thread.start();
+            boolean reshuffled = removed.await(5, TimeUnit.SECONDS);
+            dealer.terminate();
+            thread.join();
+
+            assertTrue(reshuffled, "TurnTimeoutSeconds=" + timeout);
+        }
+    }
+
+    @Test
+    void run_PlaysAGameWithComputerPlayersTakingSteps() throws InterruptedException {
+
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "4");
+        properties.put("ComputerStrategy", "Solver");
+        properties.put("ComputerReactionSeconds", "0");
+        properties.put("ComputerReactionJitterSeconds", "0");
+        properties.put("PointFreezeSeconds", "0.01");
+        properties.put("PenaltyFreezeSeconds", "0.01");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("TurnTimeoutSeconds", "1");
+        properties.put("DealStrategy", "GuaranteeSet");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        RecordingUserInterface ui = new RecordingUserInterface();
+        // every player takes its steps on the one thread of the pool
+        ScheduledExecutorService steps = Executors.newSingleThreadScheduledExecutor();
+        try {
+            Env env = new Env(logger, config, ui, new UtilImpl(config), new GameThreadFactory(logger, false), steps);
+            Table table = new Table(env);
+            Player[] players = new Player[config.players];
+            Dealer dealer = new Dealer(env, table, players);
+            for (int i = 0; i < players.length; i++)
+                players[i] = new Player(env, dealer, table, i, false);
+
+            Thread thread = new Thread(dealer);
+            thread.start();
+            thread.join(30_000);
+            if (thread.isAlive()) {
+                dealer.terminate();
+                thread.join();
+            }
+
+            assertNotNull(ui.winners(), "the game did not end");
+            assertTrue(ui.scores() > 0);
+        } finally {
+            steps.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeckTest {
+
+    Deck deck;
+
+    @BeforeEach
+    void setUp() {
+        deck = new Deck(6);
+    }
+
+    /**
+     * @return - the cards in the deck, sorted.
+     */
+    private int[] cards() {
+        int[] cards = new int[deck.size()];
+        for (int i = 0; i < cards.length; ++i)
+            cards[i] = deck.card(i);
+        Arrays.sort(cards);
+        return cards;
+    }
+
+    @Test
+    void deck_StartsWithEveryCard() {
+
+        assertEquals(6, deck.size());
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5}, cards());
+    }
+
+    @Test
+    void draw_MovesTheLastCardIntoTheDrawnCardsPlace() {
+
+        assertEquals(1, deck.draw(1));
+
+        assertEquals(5, deck.size());
+        assertEquals(5, deck.card(1));
+        assertArrayEquals(new int[]{0, 2, 3, 4, 5}, cards());
+    }
+
+    @Test
+    void draw_EmptiesTheDeck() {
+
+        while (!deck.isEmpty())
+            deck.draw(0);
+
+        assertEquals(0, deck.size());
+        assertTrue(deck.isEmpty());
+    }
+
+    @Test
+    void remove_IgnoresCardsNotInTheDeck() {
+
+        deck.remove(3);
+        deck.remove(3);
+
+        assertArrayEquals(new int[]{0, 1, 2, 4, 5}, cards());
+    }
+
+    @Test
+    void add_ReturnsACardOnlyOnce() {
+
+        deck.draw(0);
+        deck.draw(0);
+        deck.add(0);
+        deck.add(0);
+        deck.add(2);
+
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, cards());
+    }
+
+    @Test
+    void remove_KeepsTheDeckConsistentAfterAdds() {
+
+        deck.remove(5);
+        deck.remove(0);
+        deck.add(5);
+        deck.remove(4);
+        deck.remove(5);
+
+        assertArrayEquals(new int[]{1, 2, 3}, cards());
+        for (int card : cards())
+            deck.remove(card);
+        assertTrue(deck.isEmpty());
+    }
+}
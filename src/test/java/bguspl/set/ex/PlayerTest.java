@@ -11,12 +11,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,8 +34,6 @@ class PlayerTest {
     private Dealer dealer;
     @Mock
     private Logger logger;
-    @Mock
-    private ReentrantLock lock;
 
     void assertInvariants() {
         assertTrue(player.id >= 0);
@@ -46,7 +44,6 @@ class PlayerTest {
     void setUp() {
         // purposely do not find the configuration files (use defaults here).
         Env env = new Env(logger, new Config(logger, ""), ui, util);
-        table.local_Lock=lock;
         player = new Player(env, dealer, table, 0, false);
         assertInvariants();
     }
@@ -60,7 +57,7 @@ class PlayerTest {
     void point() {
 
         // force table.countCards to return 3
-        when(table.countCards()).thenReturn(3); // this part is just for demonstration
+        lenient().when(table.countCards()).thenReturn(3); // this part is just for demonstration
 
         // calculate the expected score for later
         int expectedScore = player.getScore() + 1;
@@ -0,0 +1,97 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetOracleTest {
+
+    private static Env env(int featureSize, int featureCount) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("TableDelaySeconds", "0");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        return new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+    }
+
+    /**
+     * Brute force: true iff some featureSize of the cards are, in every feature, all the same or all different.
+     */
+    private static boolean anySet(List<Integer> cards, int featureSize, int featureCount) {
+        return anySet(cards, featureSize, featureCount, new int[featureSize], 0, 0);
+    }
+
+    private static boolean anySet(List<Integer> cards, int featureSize, int featureCount, int[] chosen, int depth,
+                                  int from) {
+        if (depth == chosen.length) {
+            for (int i = 0, weight = 1; i < featureCount; ++i, weight *= featureSize) {
+                long values = 0;
+                for (int card : chosen)
+                    values |= 1L << (card / weight % featureSize);
+                int count = Long.bitCount(values);
+                if (count != 1 && count != chosen.length) return false;
+            }
+            return true;
+        }
+        for (int i = from; i < cards.size(); ++i) {
+            chosen[depth] = cards.get(i);
+            if (anySet(cards, featureSize, featureCount, chosen, depth + 1, i + 1)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the cards of the deck in a random order and compares the oracle with the brute force after each one.
+     */
+    private static void assertFollowsRemovals(int featureSize, int featureCount, long seed) {
+        Env env = env(featureSize, featureCount);
+        SetOracle oracle = new SetOracle(env);
+        List<Integer> remaining = new ArrayList<>();
+        for (int card = 0; card < env.config.deckSize; ++card)
+            remaining.add(card);
+        Collections.shuffle(remaining, new Random(seed));
+
+        assertTrue(oracle.hasSet());
+        while (!remaining.isEmpty()) {
+            oracle.remove(remaining.remove(remaining.size() - 1));
+            assertEquals(anySet(remaining, featureSize, featureCount), oracle.hasSet());
+        }
+    }
+
+    @Test
+    void hasSet_FollowsRemovalsOfThreeCardSets() {
+
+        assertFollowsRemovals(3, 3, 1);
+        assertFollowsRemovals(3, 4, 2);
+    }
+
+    @Test
+    void hasSet_FollowsRemovalsOfLargerSets() {
+
+        assertFollowsRemovals(4, 2, 3);
+        assertFollowsRemovals(5, 2, 4);
+    }
+
+    @Test
+    void remove_IgnoresCardsAlreadyRemoved() {
+
+        SetOracle oracle = new SetOracle(env(3, 1));
+        oracle.remove(0);
+        oracle.remove(0);
+        assertFalse(oracle.hasSet());
+    }
+}
@@ -4,24 +4,32 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
     @Mock
     private ReentrantLock lock;
 
     Table table;
-    private Integer[] slotToCard;
-    private Integer[] cardToSlot;
+    private int[] slotToCard;
+    private int[] cardToSlot;
 
     @BeforeEach
     void setUp() {
@@ -36,8 +44,10 @@ class TableTest {
         properties.put("PlayerKeys2", "85,73,79,80");
         MockLogger logger = new MockLogger();
         Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        slotToCard = new int[config.tableSize];
+        cardToSlot = new int[config.deckSize];
+        Arrays.fill(slotToCard, Table.NONE);
+        Arrays.fill(cardToSlot, Table.NONE);
 
         Env env = new Env(logger, config, new MockUserInterface(), new MockUtil());
         table = new Table(env, slotToCard, cardToSlot);
@@ -62,8 +72,8 @@ class TableTest {
     private void placeSomeCardsAndAssert() {
         table.placeCard(8, 2);
 
-        assertEquals(8, (int) slotToCard[2]);
-        assertEquals(2, (int) cardToSlot[8]);
+        assertEquals(8, slotToCard[2]);
+        assertEquals(2, cardToSlot[8]);
     }
 
     @Test
@@ -99,6 +109,255 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    @Test
+    void snapshot_CopiesCardsAndVersion() {
+
+        fillSomeSlots();
+        table.placeCard(8, 0);
+        int[] cards = new int[slotToCard.length];
+        long version = table.snapshot(cards);
+
+        assertArrayEquals(slotToCard, cards);
+        assertEquals(table.version(), version);
+    }
+
+    /**
+     * @return - a table of the same configuration whose set index uses the real set engine.
+     */
+    private Table indexedTable() {
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("TableDelaySeconds", "0");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        return new Table(new Env(logger, config, new MockUserInterface(), new UtilImpl(config)));
+    }
+
+    private List<int[]> setsOn(Table table) {
+        List<int[]> sets = new ArrayList<>();
+        table.snapshot(new int[slotToCard.length], sets);
+        return sets;
+    }
+
+    @Test
+    void sets_FollowPlacedCards() {
+
+        Table table = indexedTable();
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        assertFalse(table.hasSet());
+
+        table.placeCard(2, 2);
+        assertTrue(table.hasSet());
+        List<int[]> sets = setsOn(table);
+        assertEquals(1, sets.size());
+        assertArrayEquals(new int[]{0, 1, 2}, sets.get(0));
+    }
+
+    @Test
+    void sets_FollowRemovedCards() {
+
+        Table table = indexedTable();
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        table.placeCard(2, 2);
+        table.removeCard(1);
+
+        assertFalse(table.hasSet());
+        assertTrue(setsOn(table).isEmpty());
+    }
+
+    @Test
+    void sets_FollowReplacedCards() {
+
+        Table table = indexedTable();
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        table.placeCard(2, 2);
+        table.placeCard(3, 3);
+        table.placeCard(6, 1);
+
+        List<int[]> sets = setsOn(table);
+        assertEquals(1, sets.size());
+        assertArrayEquals(new int[]{0, 3, 6}, sets.get(0));
+        assertEquals(Table.NONE, table.slotOf(1));
+
+        // card 5 completes {1, 5, 6} with the replaced card 1, which is not on the table any more
+        table.placeCard(5, 3);
+        assertTrue(setsOn(table).isEmpty());
+        assertFalse(table.hasSet());
+    }
+
+    @Test
+    void toggleToken_IgnoresAnEmptySlot() {
+
+        fillSomeSlots();
+        table.toggleToken(0, 0);
+
+        assertFalse(table.hasToken(0, 0));
+        assertEquals(0, table.countTokens(0));
+    }
+
+    @Test
+    void placeToken_TakesTheTokensBackWhenTheClaimIsDropped() {
+
+        fillAllSlots();
+        table.placeToken(0, 0);
+        table.placeToken(0, 1);
+        int claims = 0;
+        do {
+            table.removeToken(0, 2);
+            table.placeToken(0, 2);
+            ++claims;
+        } while (table.countTokens(0) == 3);
+
+        // nobody drains the ring, so the claim after the last one it holds is dropped
+        assertEquals(claims - 1, table.claims.drain(claim -> {}, Integer.MAX_VALUE));
+        for (int slot = 0; slot < 3; ++slot)
+            assertFalse(table.hasToken(0, slot));
+    }
+
+    /**
+     * @return - a table with the given numbers of players and slots, and a card on every slot.
+     */
+    private Table tokenTable(int players, int slots) {
+        Properties properties = new Properties();
+        properties.put("Rows", "1");
+        properties.put("Columns", Integer.toString(slots));
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(players));
+        properties.put("TableDelaySeconds", "0");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        int[] slotToCard = new int[config.tableSize];
+        int[] cardToSlot = new int[config.deckSize];
+        Arrays.fill(cardToSlot, Table.NONE);
+        for (int slot = 0; slot < slotToCard.length; ++slot)
+            slotToCard[slot] = slot % config.deckSize;
+        return new Table(new Env(logger, config, new MockUserInterface(), new MockUtil()), slotToCard, cardToSlot);
+    }
+
+    /**
+     * @return - the slots the player has tokens on, sorted.
+     */
+    private static int[] tokensOf(Table table, int player) {
+        int[] slots = new int[3];
+        int[] tokens = Arrays.copyOf(slots, table.getTokens(player, slots));
+        Arrays.sort(tokens);
+        return tokens;
+    }
+
+    @Test
+    void getTokens_ReadsSlotsUsingAllSixteenBitsOfAField() {
+
+        // slot 65534 is stored as 65535, all 16 bits of its field set
+        Table table = tokenTable(2, 65_535);
+        table.placeToken(0, 0);
+        table.placeToken(0, 300);
+        table.placeToken(0, 65_534);
+        assertArrayEquals(new int[]{0, 300, 65_534}, tokensOf(table, 0));
+
+        // the freed field is reused, and the fields next to it are left alone
+        table.removeToken(0, 300);
+        assertArrayEquals(new int[]{0, 65_534}, tokensOf(table, 0));
+        table.placeToken(0, 40_000);
+        assertArrayEquals(new int[]{0, 40_000, 65_534}, tokensOf(table, 0));
+        assertEquals(3, table.countTokens(0));
+        assertEquals(0, table.countTokens(1));
+    }
+
+    @Test
+    void toggleToken_KeepsAtMostThreeTokensPerPlayer() {
+
+        fillAllSlots();
+        for (int slot = 0; slot < slotToCard.length; ++slot)
+            table.toggleToken(0, slot);
+
+        assertEquals(3, table.countTokens(0));
+        assertFalse(table.hasToken(0, 3));
+        assertArrayEquals(new int[]{0, 1, 2}, tokensOf(table, 0));
+
+        table.toggleToken(0, 1);
+        table.toggleToken(0, 3);
+        assertArrayEquals(new int[]{0, 2, 3}, tokensOf(table, 0));
+        assertFalse(table.hasToken(0, 1));
+        assertEquals(0, table.countTokens(1));
+    }
+
+    @Test
+    void tokens_KeepThePlayersOfEveryWordOfASlotApart() {
+
+        // 130 players take three longs per slot
+        Table table = tokenTable(130, 3);
+        int[] players = {0, 1, 63, 64, 127, 128, 129};
+        for (int player : players)
+            table.placeToken(player, 1);
+        table.placeToken(64, 0);
+        table.placeToken(63, 2);
+
+        List<Integer> onSlot = new ArrayList<>();
+        for (int player = table.nextPlayerOnSlot(1, 0); player != Table.NONE; player = table.nextPlayerOnSlot(1, player + 1))
+            onSlot.add(player);
+        assertEquals(Arrays.asList(0, 1, 63, 64, 127, 128, 129), onSlot);
+        assertEquals(63, table.nextPlayerOnSlot(1, 2));
+        assertEquals(127, table.nextPlayerOnSlot(1, 65));
+        assertEquals(128, table.nextPlayerOnSlot(1, 128));
+        assertEquals(Table.NONE, table.nextPlayerOnSlot(1, 130));
+        assertEquals(64, table.nextPlayerOnSlot(0, 0));
+        assertEquals(Table.NONE, table.nextPlayerOnSlot(0, 65));
+        assertFalse(table.hasToken(65, 1));
+        assertFalse(table.hasToken(0, 0));
+
+        table.removeTokens(1);
+        assertEquals(Table.NONE, table.nextPlayerOnSlot(1, 0));
+        for (int player : players)
+            assertFalse(table.hasToken(player, 1));
+        assertArrayEquals(new int[]{0}, tokensOf(table, 64));
+        assertArrayEquals(new int[]{2}, tokensOf(table, 63));
+        assertEquals(0, table.countTokens(129));
+    }
+
+    @Test
+    void tokens_StayConsistentWhenTheDealerRemovesThemConcurrently() throws InterruptedException {
+
+        // the player's packed slots are changed under different slot locks, only the compare-and-set keeps them whole:
+        // each thread changes the token on its own slot, so it always knows whether the token should be there
+        Table table = tokenTable(1, 2);
+        int rounds = 100_000;
+        AtomicInteger lost = new AtomicInteger();
+        Thread player = new Thread(() -> {
+            for (int i = 0; i < rounds; ++i) {
+                table.placeToken(0, 0);
+                if (!Arrays.equals(new int[]{0}, slotsBelow(table, 1))) lost.incrementAndGet();
+                table.removeToken(0, 0);
+                if (slotsBelow(table, 1).length != 0) lost.incrementAndGet();
+            }
+        });
+        Thread dealer = new Thread(() -> {
+            for (int i = 0; i < rounds; ++i) {
+                table.placeToken(0, 1);
+                table.removeTokens(1);
+            }
+        });
+        player.start();
+        dealer.start();
+        player.join();
+        dealer.join();
+
+        assertEquals(0, lost.get());
+        assertEquals(0, table.countTokens(0));
+    }
+
+    /**
+     * @return - the slots lower than the given one that player 0 has tokens on, sorted.
+     */
+    private static int[] slotsBelow(Table table, int slot) {
+        return Arrays.stream(tokensOf(table, 0)).filter(token -> token < slot).toArray();
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void placeCard(int card, int slot) {}
@@ -140,10 +399,25 @@ class TableTest {
             return false;
         }
 
+        @Override
+        public boolean testSet(int a, int b, int c) {
+            return false;
+        }
+
+        @Override
+        public int completeSet(int a, int b) {
+            return -1;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
             return null;
         }
+
+        @Override
+        public Stream<int[]> streamSets(List<Integer> deck) {
+            return Stream.empty();
+        }
     }
 
     static class MockLogger extends Logger {